@@ -0,0 +1,65 @@
+package com.example.SunriseSunset.cache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**Throughput of Cache reads and writes with several threads sharing one instance.*/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private Cache<String, List<Integer>> cache;
+    private String[] keys;
+    private List<CacheTag> tags;
+
+    /**Fills the cache with one entry per key.*/
+    @Setup
+    public void setUp() {
+        cache = new Cache<>("benchmark", 1_000_000, Duration.ofMinutes(10));
+        keys = new String[KEYS];
+        tags = List.of(CacheTag.of("Minsk", LocalDate.of(2024, 3, 15)));
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "sun_location" + i + "_2024-03-15";
+            cache.put(keys[i], List.of(i), tags);
+        }
+    }
+
+    /**Reads an existing entry.*/
+    @Benchmark
+    public Object get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    /**Reads an existing entry through the compute path.*/
+    @Benchmark
+    public Object getOrCompute() {
+        return cache.getOrCompute(keys[ThreadLocalRandom.current().nextInt(KEYS)], tags, key -> List.of(0));
+    }
+
+    /**Replaces an existing entry.*/
+    @Benchmark
+    public void put() {
+        cache.put(keys[ThreadLocalRandom.current().nextInt(KEYS)], List.of(1), tags);
+    }
+}
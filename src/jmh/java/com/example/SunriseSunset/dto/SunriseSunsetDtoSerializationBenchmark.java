@@ -0,0 +1,71 @@
+package com.example.SunriseSunset.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**Jackson serialization of DTO lists of several sizes, with the mapper configured as Spring Boot does.*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SunriseSunsetDtoSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+    private List<SunriseSunsetDto> dtos;
+
+    /**Builds the list to serialize.*/
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        OffsetDateTime sunrise = OffsetDateTime.parse("2024-03-15T04:09:31+00:00");
+        OffsetDateTime sunset = OffsetDateTime.parse("2024-03-15T15:55:02+00:00");
+        dtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dtos.add(new SunriseSunsetDto(i, "2024-03-15", 53.9, 27.5667,
+                    sunrise.plusMinutes(i % 1440), sunset.plusMinutes(i % 1440), List.of(1, 2)));
+        }
+    }
+
+    /**Serializes the whole list to UTF-8 bytes.*/
+    @Benchmark
+    public byte[] writeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    /**Serializes the whole list to CBOR.*/
+    @Benchmark
+    public byte[] writeListCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(dtos);
+    }
+
+    /**Serializes the whole list to Smile.*/
+    @Benchmark
+    public byte[] writeListSmile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.model.LocationEntity;
+import com.example.SunriseSunset.model.SunriseSunsetEntity;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**Per-entry costs on the service hot paths: DTO conversion, cache-key construction and parsing upstream times.*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SunriseSunsetServiceBenchmark {
+
+    private SunriseSunsetEntity entity;
+    private LocalDate date;
+    private String upstreamTime;
+
+    /**Builds an entity linked to three locations, as returned by the fetch-join queries.*/
+    @Setup
+    public void setUp() {
+        date = LocalDate.of(2024, 3, 15);
+        entity = new SunriseSunsetEntity();
+        entity.setId(42);
+        entity.setDate(date);
+        entity.setLatitude(53.9);
+        entity.setLongitude(27.5667);
+        entity.setSunrise(OffsetDateTime.parse("2024-03-15T04:09:31+00:00"));
+        entity.setSunset(OffsetDateTime.parse("2024-03-15T15:55:02+00:00"));
+        List<LocationEntity> locations = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            LocationEntity location = new LocationEntity();
+            location.setId(i);
+            location.setName("Location" + i);
+            locations.add(location);
+        }
+        entity.setLocations(locations);
+        upstreamTime = "2024-03-15T04:09:31+00:00";
+    }
+
+    /**Converts one entity to its DTO.*/
+    @Benchmark
+    public SunriseSunsetDto convertToDto() {
+        return SunriseSunsetService.convertToDto(entity);
+    }
+
+    /**Builds the cache key of a location and date.*/
+    @Benchmark
+    public String sunCacheKey() {
+        return SunriseSunsetService.sunCacheKey("Minsk", date);
+    }
+
+    /**Parses a sunrise or sunset time in the format returned by the upstream API.*/
+    @Benchmark
+    public OffsetDateTime parseUpstreamTime() {
+        return OffsetDateTime.parse(upstreamTime);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.SunriseSunset.solar;
+
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**Cost of one local sunrise/sunset calculation.*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolarCalculatorBenchmark {
+
+    private final SolarCalculator calculator = new SolarCalculator();
+    private final LocalDate date = LocalDate.of(2024, 3, 15);
+
+    /**Calculates sun times for a mid-latitude location.*/
+    @Benchmark
+    public SunriseSunsetModel calculate() {
+        return calculator.calculate(53.9, 27.5667, date);
+    }
+
+    /**Calculates sun times for a location in polar night, where no event is found.*/
+    @Benchmark
+    public SunriseSunsetModel calculatePolar() {
+        return calculator.calculate(78.22, 15.65, LocalDate.of(2024, 12, 21));
+    }
+}
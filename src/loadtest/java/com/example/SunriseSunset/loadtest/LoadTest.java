@@ -0,0 +1,275 @@
+package com.example.SunriseSunset.loadtest;
+
+import com.example.SunriseSunset.SunriseSunsetApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**Open-loop load test of the /sun/times endpoints against an in-process upstream stub and an in-memory database.
+ *
+ * <p>Requests are scheduled at a fixed rate and latency is measured from the scheduled start, so a slow server
+ * shows up as higher latency instead of a lower request rate. Options are passed as --name=value:
+ * rate (requests/s), duration, warmup, mix (weights of create, byId, location, range), stub-latency,
+ * mode (sun.times.mode), locations, max-in-flight and report (JSON output file).*/
+public final class LoadTest {
+
+    private static final String[] ENDPOINTS = {"create", "byId", "location", "range"};
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 366;
+
+    private final Map<String, String> options;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> locationIds = new ArrayList<>();
+    private final List<String> locationNames = new ArrayList<>();
+    private final List<Integer> entryIds = new CopyOnWriteArrayList<>();
+    private String baseUrl;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**Runs the load test with the given options.*/
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private void run() throws Exception {
+        Duration stubLatency = Duration.parse(option("stub-latency", "PT0.05S"));
+        try (UpstreamStub stub = new UpstreamStub(stubLatency)) {
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SunriseSunsetApplication.class).run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create",
+                    "--spring.sql.init.mode=never",
+                    "--sun.times.mode=" + option("mode", "remote"),
+                    "--sun.api.url=" + stub.url(),
+                    "--logging.level.root=WARN");
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                baseUrl = "http://127.0.0.1:" + port;
+                seed(Integer.parseInt(option("locations", "20")));
+                Map<String, LatencyRecorder> recorders = drive();
+                report(recorders, stub.calls());
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    /**Creates the locations and one entry per location so that reads have something to find.*/
+    private void seed(int locations) throws IOException, InterruptedException {
+        for (int i = 0; i < locations; i++) {
+            String name = "Location" + i;
+            JsonNode location = post("/locations", Map.of("name", name, "country", "Load"));
+            locationIds.add(location.get("id").asInt());
+            locationNames.add(name);
+            JsonNode entry = post("/sun/times", createBody(i));
+            entryIds.add(entry.get("id").asInt());
+        }
+    }
+
+    private Map<String, LatencyRecorder> drive() throws InterruptedException {
+        double rate = Double.parseDouble(option("rate", "100"));
+        Duration warmup = Duration.parse(option("warmup", "PT5S"));
+        Duration duration = Duration.parse(option("duration", "PT30S"));
+        double[] cumulativeWeights = cumulativeWeights(option("mix", "create:1,byId:4,location:4,range:1"));
+        Semaphore inFlight = new Semaphore(Integer.parseInt(option("max-in-flight", "512")));
+
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            recorders.put(endpoint, new LatencyRecorder(endpoint));
+        }
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        System.out.printf(Locale.ROOT, "Running %.0f req/s for %s after %s warm-up against %s%n",
+                rate, duration, warmup, baseUrl);
+
+        for (long scheduled = start; scheduled < end; scheduled += period) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String endpoint = pick(cumulativeWeights);
+            LatencyRecorder recorder = scheduled >= measureFrom ? recorders.get(endpoint) : null;
+            if (!inFlight.tryAcquire()) {
+                if (recorder != null) {
+                    recorder.dropped();
+                }
+                continue;
+            }
+            long scheduledAt = scheduled;
+            httpClient.sendAsync(request(endpoint), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        long latency = System.nanoTime() - scheduledAt;
+                        if (error == null && "create".equals(endpoint) && response.statusCode() == 200) {
+                            rememberEntry(response.body());
+                        }
+                        if (recorder == null) {
+                            return;
+                        }
+                        if (error != null || response.statusCode() >= 400) {
+                            recorder.error(latency);
+                        } else {
+                            recorder.success(latency);
+                        }
+                    });
+        }
+        inFlight.tryAcquire(Integer.parseInt(option("max-in-flight", "512")), 30, TimeUnit.SECONDS);
+        return recorders;
+    }
+
+    private HttpRequest request(String endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int location = random.nextInt(locationNames.size());
+        String name = locationNames.get(location);
+        LocalDate date = FIRST_DATE.plusDays(random.nextInt(DAYS));
+        switch (endpoint) {
+            case "create":
+                return jsonPost("/sun/times", createBody(location));
+            case "byId":
+                return get("/sun/times/" + entryIds.get(random.nextInt(entryIds.size())));
+            case "location":
+                return get("/sun/times/location/" + name + "?date=" + date);
+            case "range":
+            default:
+                LocalDate startDate = FIRST_DATE.plusDays(random.nextInt(DAYS - 31));
+                return get("/sun/times/location/" + name + "/range?startDate=" + startDate
+                        + "&endDate=" + startDate.plusDays(7 + random.nextInt(24)));
+        }
+    }
+
+    private Map<String, Object> createBody(int location) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> body = new HashMap<>();
+        body.put("date", FIRST_DATE.plusDays(random.nextInt(DAYS)).toString());
+        body.put("latitude", Math.round(random.nextDouble(-60, 60) * 1000) / 1000.0);
+        body.put("longitude", Math.round(random.nextDouble(-180, 180) * 1000) / 1000.0);
+        body.put("locationIds", List.of(locationIds.get(location)));
+        return body;
+    }
+
+    private void rememberEntry(String body) {
+        try {
+            entryIds.add(objectMapper.readTree(body).get("id").asInt());
+        } catch (IOException | RuntimeException e) {
+            // Only used to pick ids for later reads.
+        }
+    }
+
+    private static double[] cumulativeWeights(String mix) {
+        Map<String, Double> weights = new HashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.split(":");
+            weights.put(pair[0].trim(), Double.parseDouble(pair[1].trim()));
+        }
+        double[] cumulative = new double[ENDPOINTS.length];
+        double sum = 0;
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            sum += weights.getOrDefault(ENDPOINTS[i], 0.0);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static String pick(double[] cumulativeWeights) {
+        double value = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return ENDPOINTS[i];
+            }
+        }
+        return ENDPOINTS[ENDPOINTS.length - 1];
+    }
+
+    private void report(Map<String, LatencyRecorder> recorders, long upstreamCalls) throws IOException {
+        double seconds = Duration.parse(option("duration", "PT30S")).toNanos() / 1e9;
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        System.out.printf(Locale.ROOT, "%-9s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (LatencyRecorder recorder : recorders.values()) {
+            Map<String, Object> summary = recorder.summary(seconds);
+            summaries.add(summary);
+            System.out.printf(Locale.ROOT, "%-9s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    summary.get("endpoint"), summary.get("requests"), summary.get("throughput"),
+                    100 * (double) summary.get("errorRate"), summary.get("p50Ms"), summary.get("p90Ms"),
+                    summary.get("p99Ms"), summary.get("p999Ms"), summary.get("maxMs"));
+        }
+        System.out.printf(Locale.ROOT, "Upstream stub calls: %d%n", upstreamCalls);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("endpoints", summaries);
+        report.put("upstreamCalls", upstreamCalls);
+        File file = new File(option("report", "target/loadtest-report.json"));
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+
+    private JsonNode post(String path, Object body) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(jsonPost(path, body), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding " + path + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpRequest jsonPost(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.SunriseSunset.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**In-process stand-in for api.sunrise-sunset.org that answers every request after a fixed latency.*/
+final class UpstreamStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final LongAdder calls = new LongAdder();
+
+    UpstreamStub(Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/json", this::handle);
+        server.start();
+    }
+
+    /**Returns the URL to configure as sun.api.url.*/
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/json";
+    }
+
+    /**Returns the number of requests served so far.*/
+    long calls() {
+        return calls.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.increment();
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String date = queryParameter(exchange.getRequestURI().getRawQuery(), "date");
+        String body = "{\"results\":{\"sunrise\":\"" + date + "T04:00:00+00:00\",\"sunset\":\""
+                + date + "T16:00:00+00:00\"},\"status\":\"OK\"}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String queryParameter(String query, String name) {
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return "1970-01-01";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.SunriseSunset.aspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**Aspect that records latency and error counts of controller and service methods as metrics.
+ * Calls are logged only when slower than the threshold or picked by the sample rate.*/
+@Aspect
+@Component
+public class TimingAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingAspect.class);
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final double logSampleRate;
+    private final Map<Signature, Meters> meters = new ConcurrentHashMap<>();
+
+    /**Constructs a TimingAspect publishing to the given registry.*/
+    public TimingAspect(MeterRegistry meterRegistry,
+                        @Value("${aspect.timing.slow-threshold:PT0.5S}") Duration slowThreshold,
+                        @Value("${aspect.timing.log-sample-rate:0.0}") double logSampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.logSampleRate = logSampleRate;
+    }
+    /**Pointcut for all methods in controllers.*/
+
+    @Pointcut("execution(* com.example.SunriseSunset.controller..*.*(..))")
+    public void controllerMethods() {}
+    /**Pointcut for all methods in services.*/
+
+    @Pointcut("execution(* com.example.SunriseSunset.service..*.*(..))")
+    public void serviceMethods() {}
+    /**Times the method and counts its failures.*/
+
+    @Around("controllerMethods() || serviceMethods()")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Meters methodMeters = meters.computeIfAbsent(joinPoint.getSignature(), this::register);
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            methodMeters.errors().increment();
+            logger.warn("Exception in method: {} - {}", methodMeters.name(), ex.getMessage());
+            throw ex;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            methodMeters.timer().record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed >= slowThresholdNanos) {
+                logger.warn("Slow method: {} took {} ms", methodMeters.name(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            } else if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                logger.info("Method: {} took {} ms", methodMeters.name(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }
+    }
+
+    private Meters register(Signature signature) {
+        String name = signature.toShortString();
+        Timer timer = Timer.builder("app.method.timed")
+                .tag("method", name)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Counter errors = Counter.builder("app.method.errors")
+                .tag("method", name)
+                .register(meterRegistry);
+        return new Meters(name, timer, errors);
+    }
+
+    /**Meters of one method, resolved once per signature.*/
+    private record Meters(String name, Timer timer, Counter errors) {
+    }
+}
@@ -1,43 +1,347 @@
 package com.example.SunriseSunset.cache;
 
-import java.util.HashMap;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import org.springframework.stereotype.Component;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
-/**A simple in-memory cache implementation using a HashMap.*/
+/**A named, bounded, thread-safe in-memory cache region with W-TinyLFU eviction, per-entry TTL and tag-based
+ * invalidation. Loads run on the calling thread outside any map lock, so invalidation never waits for a slow loader.
+ * Hit, miss, load and eviction statistics are published as cache.* meters tagged with the region name.*/
+public class Cache<K, V> implements MeterBinder {
 
-@Component
-public class Cache {
+    private final String name;
+    private final AsyncCache<K, Entry<V>> cache;
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final Duration defaultTtl;
+    private final Map<String, Set<K>> keysByLocation = new ConcurrentHashMap<>();
 
-    private final Map<String, Object> cache;
-    /**Constructs a new Cache instance with an empty HashMap.*/
+    /**Constructs a new Cache region bounded by the estimated weight of its entries.
+     * A value weighs 1, a collection its size plus 1.*/
+    public Cache(String name, long maxWeight, Duration defaultTtl) {
+        this.name = name;
+        this.defaultTtl = defaultTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((K key, Entry<V> entry) -> entry.weight())
+                .expireAfter(new EntryExpiry<K, V>())
+                // Explicit removals and replacements re-index inside the map's compute; evictions are indexed here,
+                // synchronously with the removal, so no newer mapping of the key can be indexed in between.
+                .evictionListener((K key, Entry<V> entry, RemovalCause cause) -> {
+                    if (key != null && entry != null) {
+                        unindex(key, entry.tags());
+                    }
+                })
+                .recordStats(() -> new LookupStatsCounter(statsCounter))
+                .buildAsync();
+    }
+
+    /**Returns the name of the region.*/
+    public String name() {
+        return name;
+    }
+
+    /**Retrieves a value from the cache by key, or null if absent or expired.*/
+    public V get(K key) {
+        Entry<V> entry = completed(cache.getIfPresent(key));
+        return entry != null ? entry.value() : null;
+    }
+
+    /**Atomically returns the cached value or computes, stores and returns it. Null results are not cached.*/
+    public V getOrCompute(K key, Function<K, V> loader) {
+        return getOrCompute(key, defaultTtl, List.of(), loader);
+    }
+
+    /**Atomically returns the cached value or computes and stores it with the given TTL.*/
+    public V getOrCompute(K key, Duration ttl, Function<K, V> loader) {
+        return getOrCompute(key, ttl, List.of(), loader);
+    }
+
+    /**Atomically returns the cached value or computes and stores it with the given invalidation tags.*/
+    public V getOrCompute(K key, Collection<CacheTag> tags, Function<K, V> loader) {
+        return getOrCompute(key, defaultTtl, tags, loader);
+    }
+
+    /**Atomically returns the cached value or computes and stores it with the given TTL and invalidation tags.*/
+    @SuppressWarnings("unchecked")
+    public V getOrCompute(K key, Duration ttl, Collection<CacheTag> tags, Function<K, V> loader) {
+        Load<V> load = new Load<>(List.copyOf(tags));
+        CompletableFuture<Entry<V>>[] present = new CompletableFuture[1];
+        cache.asMap().compute(key, (k, current) -> {
+            if (current != null) {
+                present[0] = current;
+                return current;
+            }
+            // Indexed before loading so that an invalidation during the load drops the pending result.
+            retag(k, current, load);
+            return load;
+        });
+        CompletableFuture<Entry<V>> pending = present[0];
+        if (pending != null) {
+            // compute bypasses Caffeine's hit and miss counts, so they are recorded here along with the load time.
+            statsCounter.recordHits(1);
+            try {
+                Entry<V> entry = pending.join();
+                return entry != null ? entry.value() : null;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        statsCounter.recordMisses(1);
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            if (value == null) {
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+                discard(key, load);
+                load.complete(null);
+                return null;
+            }
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            load.complete(new Entry<>(value, ttl, load.tags()));
+            return value;
+        } catch (RuntimeException e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            discard(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**Removes a load that produced nothing. If it was superseded, the index belongs to the newer mapping and is kept.*/
+    private void discard(K key, Load<V> load) {
+        cache.asMap().computeIfPresent(key, (k, current) -> {
+            if (current != load) {
+                return current;
+            }
+            retag(k, current, null);
+            return null;
+        });
+    }
 
-    public Cache() {
-        this.cache = new HashMap<>();
+    /**Stores a value in the cache with the specified key and the default TTL.*/
+    public void put(K key, V value) {
+        put(key, value, defaultTtl);
     }
-    /**Retrieves a value from the cache by key.*/
 
-    public Object get(String key) {
-        return cache.get(key);
+    /**Stores a value in the cache with the specified key and TTL.*/
+    public void put(K key, V value, Duration ttl) {
+        store(key, new Entry<>(value, ttl, List.of()));
     }
 
-    /**Stores a value in the cache with the specified key.*/
-    public void put(String key, Object value) {
-        cache.put(key, value);
+    /**Stores a value in the cache with the specified key and invalidation tags.*/
+    public void put(K key, V value, Collection<CacheTag> tags) {
+        store(key, new Entry<>(value, defaultTtl, List.copyOf(tags)));
+    }
+
+    private void store(K key, Entry<V> entry) {
+        Load<V> stored = new Load<>(entry.tags());
+        stored.complete(entry);
+        cache.asMap().compute(key, (k, current) -> {
+            retag(k, current, stored);
+            return stored;
+        });
     }
 
     /**Checks if the cache contains a specific key.*/
-    public boolean containsKey(String key) {
-        return cache.containsKey(key);
+    public boolean containsKey(K key) {
+        return completed(cache.getIfPresent(key)) != null;
+    }
+
+    /**Removes a single entry from the cache.*/
+    public void invalidate(K key) {
+        cache.asMap().computeIfPresent(key, (k, current) -> {
+            retag(k, current, null);
+            return null;
+        });
+    }
+
+    /**Removes every entry tagged with the location whose date span covers the given date. Returns the number removed.*/
+    public int invalidate(String location, LocalDate date) {
+        Set<K> keys = keysByLocation.get(location);
+        if (keys == null) {
+            return 0;
+        }
+        int[] removed = new int[1];
+        for (K key : keys) {
+            cache.asMap().compute(key, (k, future) -> {
+                if (future == null) {
+                    // Removed by Caffeine without an eviction, e.g. a failed load; drop the stale index entry.
+                    unindex(k, List.of(CacheTag.of(location, date)));
+                    return null;
+                }
+                Entry<V> entry = completed(future);
+                // A load still in progress may have read data older than the change being invalidated.
+                if (!future.isDone() || entry != null && entry.covers(location, date)) {
+                    retag(k, future, null);
+                    removed[0]++;
+                    return null;
+                }
+                return future;
+            });
+        }
+        return removed[0];
     }
 
     /**Clears all entries in the cache.*/
     public void clear() {
-        cache.clear();
+        for (K key : cache.asMap().keySet()) {
+            invalidate(key);
+        }
+    }
+
+    /**Returns the approximate number of entries in the cache.*/
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**Returns a snapshot of the hit, miss, load and eviction statistics of the region.*/
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**Registers the statistics of the region as cache.* meters tagged cache=name.*/
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(cache.synchronous(), name, List.of()).bindTo(registry);
+    }
+
+    private static <V> Entry<V> completed(CompletableFuture<Entry<V>> future) {
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
     }
 
-    /**Returns the number of entries in the cache.*/
-    public int size() {
-        return cache.size();
+    /**Returns the number of keys in the tag index, counted once per location, after pending evictions are done.*/
+    int indexedKeys() {
+        cache.synchronous().cleanUp();
+        return keysByLocation.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**Moves the key from the locations of the previous mapping to those of the next one, either of which may be null.
+     * Called inside the map's compute for the key, so mappings of one key are indexed in the order they are made.*/
+    private void retag(K key, CompletableFuture<Entry<V>> previous, CompletableFuture<Entry<V>> next) {
+        Set<String> locations = new HashSet<>();
+        for (CacheTag tag : tagsOf(next)) {
+            locations.add(tag.location());
+        }
+        List<CacheTag> stale = tagsOf(previous).stream()
+                .filter(tag -> !locations.contains(tag.location()))
+                .toList();
+        unindex(key, stale);
+        for (String location : locations) {
+            keysByLocation.compute(location, (l, keys) -> {
+                Set<K> result = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                result.add(key);
+                return result;
+            });
+        }
+    }
+
+    private static <V> List<CacheTag> tagsOf(CompletableFuture<Entry<V>> future) {
+        return future instanceof Load<V> load ? load.tags() : List.of();
+    }
+
+    private void unindex(K key, Collection<CacheTag> tags) {
+        for (CacheTag tag : tags) {
+            keysByLocation.computeIfPresent(tag.location(), (location, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**Passes Caffeine's hit, miss and eviction counts through. Loads are timed by getOrCompute itself, because Caffeine
+     * would also count every compute of the map, which is how puts and invalidations keep the tag index in step.*/
+    private record LookupStatsCounter(StatsCounter delegate) implements StatsCounter {
+
+        @Override
+        public void recordHits(int count) {
+            delegate.recordHits(count);
+        }
+
+        @Override
+        public void recordMisses(int count) {
+            delegate.recordMisses(count);
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTime) {
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTime) {
+        }
+
+        @Override
+        public void recordEviction(int weight, RemovalCause cause) {
+            delegate.recordEviction(weight, cause);
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return delegate.snapshot();
+        }
+    }
+
+    /**Future of a cached entry that knows its invalidation tags while it is still loading.*/
+    private static final class Load<V> extends CompletableFuture<Entry<V>> {
+
+        private final List<CacheTag> tags;
+
+        Load(List<CacheTag> tags) {
+            this.tags = tags;
+        }
+
+        List<CacheTag> tags() {
+            return tags;
+        }
+    }
+
+    /**Cached value together with its time-to-live and invalidation tags.*/
+    private record Entry<V>(V value, Duration ttl, List<CacheTag> tags) {
+
+        /**Estimates the cost of the entry, so that large lists count for more than single objects.*/
+        int weight() {
+            return value instanceof Collection<?> collection ? collection.size() + 1 : 1;
+        }
+
+        boolean covers(String location, LocalDate date) {
+            return tags.stream().anyMatch(tag -> tag.covers(location, date));
+        }
+    }
+
+    /**Expires every entry after its own TTL, counted from the last write.*/
+    private static final class EntryExpiry<K, V> implements Expiry<K, Entry<V>> {
+
+        @Override
+        public long expireAfterCreate(K key, Entry<V> entry, long currentTime) {
+            return entry.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Entry<V> entry, long currentTime, long currentDuration) {
+            return entry.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(K key, Entry<V> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
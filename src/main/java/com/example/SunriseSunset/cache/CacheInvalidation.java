@@ -0,0 +1,19 @@
+package com.example.SunriseSunset.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDate;
+
+/**Eviction broadcast to the other instances: one day of a location, or everything when location is null.*/
+public record CacheInvalidation(String origin, String location, LocalDate date) {
+
+    /**Creates a message that clears all sun-time caches.*/
+    public static CacheInvalidation clearAll(String origin) {
+        return new CacheInvalidation(origin, null, null);
+    }
+
+    /**Checks whether the message clears all sun-time caches.*/
+    @JsonIgnore
+    public boolean isClearAll() {
+        return location == null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.SunriseSunset.cache;
+
+import java.time.LocalDate;
+
+/**Describes which location and date span a cached result was built from, so writes can evict only affected entries.*/
+public record CacheTag(String location, LocalDate start, LocalDate end) {
+
+    /**Creates a tag for a single date.*/
+    public static CacheTag of(String location, LocalDate date) {
+        return new CacheTag(location, date, date);
+    }
+
+    /**Checks whether a change to the location on the given date affects the tagged result.*/
+    public boolean covers(String location, LocalDate date) {
+        return this.location.equals(location) && !date.isBefore(start) && !date.isAfter(end);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.SunriseSunset.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**Delivers invalidations synchronously to every subscriber in this JVM, across application contexts.
+ * Enough for a single instance, and lets two contexts be tested side by side.*/
+public class InProcessInvalidationTransport implements InvalidationTransport, AutoCloseable {
+
+    private static final List<Consumer<CacheInvalidation>> RECEIVERS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<CacheInvalidation>> ownReceivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> receiver : RECEIVERS) {
+            receiver.accept(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> receiver) {
+        ownReceivers.add(receiver);
+        RECEIVERS.add(receiver);
+    }
+
+    /**Unsubscribes the receivers of this transport, so a closed context no longer receives invalidations.*/
+    @Override
+    public void close() {
+        RECEIVERS.removeAll(ownReceivers);
+        ownReceivers.clear();
+    }
+}
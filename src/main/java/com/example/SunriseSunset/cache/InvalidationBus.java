@@ -0,0 +1,83 @@
+package com.example.SunriseSunset.cache;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**Evicts changed sun times from the caches of this instance and broadcasts the eviction to its peers,
+ * which apply it to their own caches.*/
+public class InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache;
+    private final RangeCache rangeCache;
+    private final Counter published;
+    private final Counter received;
+    private final Counter publishFailures;
+
+    /**Constructs an InvalidationBus over the given transport and subscribes to it.*/
+    public InvalidationBus(InvalidationTransport transport,
+                           Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache,
+                           RangeCache rangeCache,
+                           MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.sunriseSunsetCache = sunriseSunsetCache;
+        this.rangeCache = rangeCache;
+        this.published = meterRegistry.counter("sun.cache.invalidation.published");
+        this.received = meterRegistry.counter("sun.cache.invalidation.received");
+        this.publishFailures = meterRegistry.counter("sun.cache.invalidation.publish.failures");
+        transport.subscribe(this::receive);
+    }
+
+    /**Evicts the entries of the location covering the date here and on the peers; returns the number evicted here.*/
+    public int invalidate(String location, LocalDate date) {
+        int removed = evict(location, date);
+        publish(new CacheInvalidation(nodeId, location, date));
+        return removed;
+    }
+
+    /**Clears the sun-time caches here and on the peers.*/
+    public void clear() {
+        sunriseSunsetCache.clear();
+        rangeCache.clear();
+        publish(CacheInvalidation.clearAll(nodeId));
+    }
+
+    private int evict(String location, LocalDate date) {
+        rangeCache.invalidate(location, date);
+        return sunriseSunsetCache.invalidate(location, date);
+    }
+
+    private void publish(CacheInvalidation invalidation) {
+        try {
+            transport.publish(invalidation);
+            published.increment();
+        } catch (RuntimeException e) {
+            // The local eviction already happened; peers keep stale entries until their TTL runs out.
+            publishFailures.increment();
+            logger.warn("Failed to broadcast cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void receive(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        received.increment();
+        if (invalidation.isClearAll()) {
+            sunriseSunsetCache.clear();
+            rangeCache.clear();
+            logger.info("Cleared caches on request of instance {}", invalidation.origin());
+        } else {
+            evict(invalidation.location(), invalidation.date());
+        }
+    }
+}
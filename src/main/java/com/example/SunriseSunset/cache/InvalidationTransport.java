@@ -0,0 +1,14 @@
+package com.example.SunriseSunset.cache;
+
+import java.util.function.Consumer;
+
+/**Carries cache invalidations between instances. Delivery is best effort; a transport that may have lost
+ * messages reports that by delivering a clear-all invalidation.*/
+public interface InvalidationTransport {
+
+    /**Sends the invalidation to every subscribed instance, including the sender.*/
+    void publish(CacheInvalidation invalidation);
+
+    /**Registers the receiver of invalidations published by any instance.*/
+    void subscribe(Consumer<CacheInvalidation> receiver);
+}
@@ -0,0 +1,219 @@
+package com.example.SunriseSunset.cache;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**Per-location cache of sun-time entries by day that answers sub-ranges of already loaded ranges from memory.
+ * Bounded by the total number of cached entries, so a few long timelines cannot grow past the limit.*/
+public class RangeCache implements MeterBinder {
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, Timeline> timelines;
+
+    /**Constructs a RangeCache holding up to maxEntries entries over all timelines, each timeline expiring after
+     * ttl without access.*/
+    public RangeCache(long maxEntries, Duration ttl) {
+        this.timelines = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((String location, Timeline timeline) -> timeline.weight)
+                .expireAfter(new TimelineExpiry(ttl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**Returns the timeline of the location, creating an empty one if needed.*/
+    public Timeline timeline(String location) {
+        return timelines.get(location, key -> new Timeline(
+                // Puts the same timeline again so that the cache weighs it anew after it grew or shrank.
+                timeline -> timelines.asMap().replace(key, timeline, timeline)));
+    }
+
+    /**Keeps the timeline of the location for at least the given duration, even if it is not accessed.*/
+    public void pin(String location, Duration duration) {
+        Timeline timeline = timeline(location);
+        timeline.pinnedUntil = System.nanoTime() + duration.toNanos();
+        timelines.policy().expireVariably().ifPresent(policy -> policy.setExpiresAfter(location, duration));
+    }
+
+    /**Drops the cached day of the location so the next range request reloads it.*/
+    public void invalidate(String location, LocalDate date) {
+        Timeline timeline = timelines.getIfPresent(location);
+        if (timeline != null) {
+            timeline.invalidate(date.toEpochDay());
+        }
+    }
+
+    /**Clears all timelines.*/
+    public void clear() {
+        timelines.invalidateAll();
+    }
+
+    /**Returns the number of locations with a cached timeline.*/
+    public long size() {
+        return timelines.estimatedSize();
+    }
+
+    /**Performs pending evictions now instead of on the next access.*/
+    void cleanUp() {
+        timelines.cleanUp();
+    }
+
+    /**Registers the statistics of the timelines as cache.* meters tagged cache=sun-ranges.*/
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(timelines, "sun-ranges", List.of()).bindTo(registry);
+    }
+
+    /**Entries of one location by epoch day, with the set of day intervals known to be complete.*/
+    public static final class Timeline {
+
+        private SunTimeSeries entries = SunTimeSeries.EMPTY;
+        private final NavigableMap<Long, Long> covered = new TreeMap<>();
+        private final Consumer<Timeline> resized;
+        /**Number of entries plus one, read by the weigher without taking the lock.*/
+        private volatile int weight = 1;
+        private long version;
+        /**System.nanoTime() until which the timeline must be kept, or 0 if it is not pinned.*/
+        private volatile long pinnedUntil;
+
+        private Timeline(Consumer<Timeline> resized) {
+            this.resized = resized;
+        }
+
+        /**Returns a counter that changes on every invalidation; pass it to {@link #merge}.*/
+        public synchronized long version() {
+            return version;
+        }
+
+        /**Returns the date intervals within [start, end] that are not cached yet.*/
+        public synchronized List<LocalDate[]> gaps(LocalDate start, LocalDate end) {
+            List<LocalDate[]> gaps = new ArrayList<>();
+            long cursor = start.toEpochDay();
+            long last = end.toEpochDay();
+            Map.Entry<Long, Long> before = covered.floorEntry(cursor);
+            if (before != null && before.getValue() >= cursor) {
+                cursor = before.getValue() + 1;
+            }
+            if (cursor > last) {
+                return gaps;
+            }
+            for (Map.Entry<Long, Long> interval : covered.subMap(cursor, true, last, true).entrySet()) {
+                if (interval.getKey() > cursor) {
+                    gaps.add(new LocalDate[] {LocalDate.ofEpochDay(cursor), LocalDate.ofEpochDay(interval.getKey() - 1)});
+                }
+                cursor = Math.max(cursor, interval.getValue() + 1);
+            }
+            if (cursor <= last) {
+                gaps.add(new LocalDate[] {LocalDate.ofEpochDay(cursor), LocalDate.ofEpochDay(last)});
+            }
+            return gaps;
+        }
+
+        /**Stores the complete entries of [start, end]. Returns false and stores nothing if invalidated since version.*/
+        public boolean merge(long expectedVersion, LocalDate start, LocalDate end, List<SunriseSunsetDto> entries) {
+            synchronized (this) {
+                if (version != expectedVersion) {
+                    return false;
+                }
+                long first = start.toEpochDay();
+                long last = end.toEpochDay();
+                this.entries = this.entries.replace(first, last, entries);
+                addCovered(first, last);
+                weight = this.entries.size() + 1;
+            }
+            // Outside the lock: the cache calls the weigher under its own lock.
+            resized.accept(this);
+            return true;
+        }
+
+        /**Returns the cached entries of [start, end] in date order as a read-only list that builds each DTO on access.
+         * Callers must check {@link #gaps} first.*/
+        public synchronized List<SunriseSunsetDto> slice(LocalDate start, LocalDate end) {
+            return entries.view(start.toEpochDay(), end.toEpochDay());
+        }
+
+        /**Returns the number of cached entries.*/
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        private void invalidate(long day) {
+            synchronized (this) {
+                version++;
+                entries = entries.remove(day);
+                weight = entries.size() + 1;
+                uncover(day);
+            }
+            resized.accept(this);
+        }
+
+        private void uncover(long day) {
+            Map.Entry<Long, Long> interval = covered.floorEntry(day);
+            if (interval == null || interval.getValue() < day) {
+                return;
+            }
+            covered.remove(interval.getKey());
+            if (interval.getKey() < day) {
+                covered.put(interval.getKey(), day - 1);
+            }
+            if (interval.getValue() > day) {
+                covered.put(day + 1, interval.getValue());
+            }
+        }
+
+        private void addCovered(long first, long last) {
+            long start = first;
+            long end = last;
+            Map.Entry<Long, Long> before = covered.floorEntry(start);
+            if (before != null && before.getValue() >= start - 1) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+                covered.remove(before.getKey());
+            }
+            Map.Entry<Long, Long> next = covered.ceilingEntry(start);
+            while (next != null && next.getKey() <= end + 1) {
+                end = Math.max(end, next.getValue());
+                covered.remove(next.getKey());
+                next = covered.ceilingEntry(start);
+            }
+            covered.put(start, end);
+        }
+    }
+
+    /**Expires a timeline after ttl without access, but not before the time it is pinned until.*/
+    private static final class TimelineExpiry implements Expiry<String, Timeline> {
+
+        private final long ttlNanos;
+
+        TimelineExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Timeline timeline, long currentTime) {
+            long pinnedUntil = timeline.pinnedUntil;
+            return pinnedUntil == 0 ? ttlNanos : Math.max(ttlNanos, pinnedUntil - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Timeline timeline, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, timeline, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Timeline timeline, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, timeline, currentTime);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.SunriseSunset.cache;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**Immutable column store of sun-time entries sorted by day and id, kept in primitive arrays.
+ * Location ids of row i are locationIds[locationStart[i] .. locationStart[i + 1]).
+ * A row costs about 64 bytes plus 4 per location, against several hundred for a SunriseSunsetDto.*/
+final class SunTimeSeries {
+
+    /**Nano-of-second marking a missing time.*/
+    private static final int NO_TIME = -1;
+
+    static final SunTimeSeries EMPTY = new SunTimeSeries(0, 0);
+
+    private final int size;
+    private final int[] days;
+    private final int[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] sunriseSeconds;
+    private final int[] sunriseNanos;
+    private final int[] sunriseOffsets;
+    private final long[] sunsetSeconds;
+    private final int[] sunsetNanos;
+    private final int[] sunsetOffsets;
+    private final int[] locationStart;
+    private final int[] locationIds;
+
+    private SunTimeSeries(int size, int locationCount) {
+        this.size = size;
+        this.days = new int[size];
+        this.ids = new int[size];
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.sunriseSeconds = new long[size];
+        this.sunriseNanos = new int[size];
+        this.sunriseOffsets = new int[size];
+        this.sunsetSeconds = new long[size];
+        this.sunsetNanos = new int[size];
+        this.sunsetOffsets = new int[size];
+        this.locationStart = new int[size + 1];
+        this.locationIds = new int[locationCount];
+    }
+
+    /**Returns the number of entries.*/
+    int size() {
+        return size;
+    }
+
+    /**Returns a copy in which the entries of days [first, last] are replaced by the given entries.*/
+    SunTimeSeries replace(long first, long last, List<SunriseSunsetDto> entries) {
+        List<SunriseSunsetDto> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong((SunriseSunsetDto dto) -> LocalDate.parse(dto.getDate()).toEpochDay())
+                .thenComparing(SunriseSunsetDto::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        int from = lowerBound(first);
+        int to = lowerBound(last + 1);
+        int locationCount = locationStart[from] + locationStart[size] - locationStart[to];
+        for (SunriseSunsetDto dto : sorted) {
+            locationCount += dto.getLocationIds() != null ? dto.getLocationIds().size() : 0;
+        }
+
+        SunTimeSeries result = new SunTimeSeries(from + sorted.size() + size - to, locationCount);
+        int row = result.copyRows(this, 0, from, 0);
+        for (SunriseSunsetDto dto : sorted) {
+            result.set(row++, dto);
+        }
+        result.copyRows(this, to, size, row);
+        return result;
+    }
+
+    /**Returns a copy without the entries of the given day.*/
+    SunTimeSeries remove(long day) {
+        int from = lowerBound(day);
+        int to = lowerBound(day + 1);
+        if (from == to) {
+            return this;
+        }
+        SunTimeSeries result = new SunTimeSeries(size - (to - from),
+                locationStart[size] - (locationStart[to] - locationStart[from]));
+        int row = result.copyRows(this, 0, from, 0);
+        result.copyRows(this, to, size, row);
+        return result;
+    }
+
+    /**Returns a read-only view of the entries of days [first, last] that builds each DTO when it is read.*/
+    List<SunriseSunsetDto> view(long first, long last) {
+        int from = lowerBound(first);
+        int to = lowerBound(last + 1);
+        return new View(from, to);
+    }
+
+    /**Returns the index of the first row whose day is not before the given day.*/
+    private int lowerBound(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**Copies rows [from, to) of the source to this series starting at row; returns the next free row.*/
+    private int copyRows(SunTimeSeries source, int from, int to, int row) {
+        int count = to - from;
+        System.arraycopy(source.days, from, days, row, count);
+        System.arraycopy(source.ids, from, ids, row, count);
+        System.arraycopy(source.latitudes, from, latitudes, row, count);
+        System.arraycopy(source.longitudes, from, longitudes, row, count);
+        System.arraycopy(source.sunriseSeconds, from, sunriseSeconds, row, count);
+        System.arraycopy(source.sunriseNanos, from, sunriseNanos, row, count);
+        System.arraycopy(source.sunriseOffsets, from, sunriseOffsets, row, count);
+        System.arraycopy(source.sunsetSeconds, from, sunsetSeconds, row, count);
+        System.arraycopy(source.sunsetNanos, from, sunsetNanos, row, count);
+        System.arraycopy(source.sunsetOffsets, from, sunsetOffsets, row, count);
+        int locationFrom = source.locationStart[from];
+        int locationCount = source.locationStart[to] - locationFrom;
+        System.arraycopy(source.locationIds, locationFrom, locationIds, locationStart[row], locationCount);
+        for (int i = 0; i < count; i++) {
+            locationStart[row + i + 1] = locationStart[row] + source.locationStart[from + i + 1] - locationFrom;
+        }
+        return row + count;
+    }
+
+    private void set(int row, SunriseSunsetDto dto) {
+        days[row] = (int) LocalDate.parse(dto.getDate()).toEpochDay();
+        ids[row] = dto.getId() != null ? dto.getId() : 0;
+        latitudes[row] = dto.getLatitude();
+        longitudes[row] = dto.getLongitude();
+        OffsetDateTime sunrise = dto.getSunrise();
+        sunriseSeconds[row] = sunrise != null ? sunrise.toEpochSecond() : 0;
+        sunriseNanos[row] = sunrise != null ? sunrise.getNano() : NO_TIME;
+        sunriseOffsets[row] = sunrise != null ? sunrise.getOffset().getTotalSeconds() : 0;
+        OffsetDateTime sunset = dto.getSunset();
+        sunsetSeconds[row] = sunset != null ? sunset.toEpochSecond() : 0;
+        sunsetNanos[row] = sunset != null ? sunset.getNano() : NO_TIME;
+        sunsetOffsets[row] = sunset != null ? sunset.getOffset().getTotalSeconds() : 0;
+        int next = locationStart[row];
+        if (dto.getLocationIds() != null) {
+            for (Integer locationId : dto.getLocationIds()) {
+                locationIds[next++] = locationId;
+            }
+        }
+        locationStart[row + 1] = next;
+    }
+
+    private SunriseSunsetDto toDto(int row) {
+        List<Integer> locations = new ArrayList<>(locationStart[row + 1] - locationStart[row]);
+        for (int i = locationStart[row]; i < locationStart[row + 1]; i++) {
+            locations.add(locationIds[i]);
+        }
+        return new SunriseSunsetDto(ids[row], LocalDate.ofEpochDay(days[row]).toString(),
+                latitudes[row], longitudes[row],
+                time(sunriseSeconds[row], sunriseNanos[row], sunriseOffsets[row]),
+                time(sunsetSeconds[row], sunsetNanos[row], sunsetOffsets[row]),
+                locations);
+    }
+
+    private static OffsetDateTime time(long epochSecond, int nano, int offsetSeconds) {
+        if (nano == NO_TIME) {
+            return null;
+        }
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(offsetSeconds);
+        return OffsetDateTime.of(LocalDateTime.ofEpochSecond(epochSecond, nano, offset), offset);
+    }
+
+    /**Rows [from, to) of this immutable series as DTOs.*/
+    private final class View extends AbstractList<SunriseSunsetDto> implements RandomAccess {
+
+        private final int from;
+        private final int to;
+
+        View(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public SunriseSunsetDto get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return toDto(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
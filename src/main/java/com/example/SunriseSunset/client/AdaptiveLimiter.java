@@ -0,0 +1,174 @@
+package com.example.SunriseSunset.client;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**Client-side limiter combining an AIMD concurrency limit with a token bucket for the request rate.
+ * The limit grows by one per limit's worth of fast successes while it is in use, and shrinks by the backoff
+ * ratio when a call is throttled, fails or exceeds the latency threshold. Callers that find no free slot or
+ * token wait in a bounded queue until their deadline.*/
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxQueue;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    /**Constructs a limiter starting at initialLimit concurrent calls, kept within minLimit and maxLimit,
+     * that admits at most ratePerSecond calls with bursts of up to burst calls and queues up to maxQueue callers.*/
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                           Duration latencyThreshold, double ratePerSecond, int burst, int maxQueue) {
+        if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1
+                || ratePerSecond <= 0 || burst < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("Invalid limiter settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.maxQueue = maxQueue;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.tokens = burst;
+    }
+
+    /**Waits up to timeout for a free slot and a token and returns whether the call may proceed.
+     * Returns false at once if the queue is full. Every permitted call must be followed by onSuccess,
+     * onDropped or onIgnored.*/
+    public boolean tryAcquire(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        lock.lock();
+        try {
+            if (tryTake()) {
+                return true;
+            }
+            if (waiting >= maxQueue) {
+                return false;
+            }
+            waiting++;
+            try {
+                while (true) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    // Without a free slot only a release wakes the caller; otherwise the next token is awaited.
+                    long wait = inFlight < (int) limit
+                            ? Math.min(remaining, (long) Math.ceil((1 - tokens) / tokensPerNano))
+                            : remaining;
+                    available.awaitNanos(Math.max(wait, 1));
+                    if (tryTake()) {
+                        return true;
+                    }
+                }
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Records a call that completed normally after latency; slow calls reduce the limit like failures.*/
+    public void onSuccess(Duration latency) {
+        lock.lock();
+        try {
+            if (latency.toNanos() > latencyThresholdNanos) {
+                decrease();
+            } else if (inFlight * 2 >= limit) {
+                // Grows only while at least half of the limit is used, so an idle client does not inflate it.
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Records a call that was throttled, timed out or failed, and reduces the limit.*/
+    public void onDropped() {
+        lock.lock();
+        try {
+            decrease();
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Releases a permitted call without adjusting the limit.*/
+    public void onIgnored() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Returns the current concurrency limit.*/
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Returns the number of calls in progress.*/
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Returns the number of callers waiting for a slot or a token.*/
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryTake() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (inFlight >= (int) limit || tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        inFlight++;
+        return true;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void release() {
+        inFlight--;
+        // Wakes all waiters: the first one may still lack a token while a later one could take the slot.
+        available.signalAll();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.SunriseSunset.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**Minimal circuit breaker: opens after consecutive failures, then lets a single trial call through after a cool-down.*/
+public class CircuitBreaker {
+
+    /**State of the circuit.*/
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInProgress;
+
+    /**Constructs a circuit breaker that opens after failureThreshold consecutive failures for openDuration.*/
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    /**Constructs a circuit breaker using the given clock.*/
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**Returns whether a call may proceed now. Every permitted call must be followed by onSuccess, onFailure or onIgnored.*/
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInProgress = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInProgress) {
+                    return false;
+                }
+                trialInProgress = true;
+                return true;
+        }
+    }
+
+    /**Records a successful call and closes the circuit.*/
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        state = State.CLOSED;
+    }
+
+    /**Records a failed call and opens the circuit when the threshold is reached or a trial call fails.*/
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+        }
+    }
+
+    /**Releases a permitted call that never reached the upstream, leaving the state unchanged.*/
+    public synchronized void onIgnored() {
+        trialInProgress = false;
+    }
+
+    /**Returns the current state of the circuit.*/
+    public synchronized State getState() {
+        return state;
+    }
+}
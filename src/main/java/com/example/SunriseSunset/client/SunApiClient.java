@@ -0,0 +1,113 @@
+package com.example.SunriseSunset.client;
+
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import com.example.SunriseSunset.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**Client for the external api.sunrise-sunset.org service, guarded by a circuit breaker and an adaptive limiter.*/
+@Component
+public class SunApiClient {
+
+    private final RestTemplate restTemplate;
+    private final String apiUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveLimiter limiter;
+    private final Duration limiterMaxWait;
+    private final Counter rejectedByCircuit;
+    private final Counter rejectedByLimiter;
+    private final Counter throttled;
+
+    /**Constructs a SunApiClient that calls the configured API URL.*/
+    public SunApiClient(RestTemplate restTemplate,
+                        @Value("${sun.api.url:https://api.sunrise-sunset.org/json}") String apiUrl,
+                        @Value("${sun.api.circuit.failure-threshold:5}") int failureThreshold,
+                        @Value("${sun.api.circuit.open-duration:PT30S}") Duration openDuration,
+                        @Value("${sun.api.limiter.initial-limit:10}") int initialLimit,
+                        @Value("${sun.api.limiter.min-limit:1}") int minLimit,
+                        @Value("${sun.api.limiter.max-limit:20}") int maxLimit,
+                        @Value("${sun.api.limiter.backoff-ratio:0.9}") double backoffRatio,
+                        @Value("${sun.api.limiter.latency-threshold:PT2S}") Duration latencyThreshold,
+                        @Value("${sun.api.limiter.rate:10}") double ratePerSecond,
+                        @Value("${sun.api.limiter.burst:20}") int burst,
+                        @Value("${sun.api.limiter.max-queue:100}") int maxQueue,
+                        @Value("${sun.api.limiter.max-wait:PT0.5S}") Duration limiterMaxWait,
+                        MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.apiUrl = apiUrl;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold,
+                ratePerSecond, burst, maxQueue);
+        this.limiterMaxWait = limiterMaxWait;
+        this.rejectedByCircuit = meterRegistry.counter("sun.api.circuit.rejected");
+        this.rejectedByLimiter = meterRegistry.counter("sun.api.limiter.rejected");
+        this.throttled = meterRegistry.counter("sun.api.throttled");
+        meterRegistry.gauge("sun.api.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal());
+        meterRegistry.gauge("sun.api.limiter.limit", limiter, AdaptiveLimiter::getLimit);
+        meterRegistry.gauge("sun.api.limiter.in.flight", limiter, AdaptiveLimiter::getInFlight);
+        meterRegistry.gauge("sun.api.limiter.queue.size", limiter, AdaptiveLimiter::getQueueSize);
+    }
+
+    /**Fetches sunrise and sunset data from the external API.*/
+    public SunriseSunsetModel fetch(double lat, double lng, String date) {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedByCircuit.increment();
+            throw new UpstreamUnavailableException("API sunrise-sunset временно недоступен");
+        }
+        boolean permitted;
+        try {
+            permitted = limiter.tryAcquire(limiterMaxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permitted = false;
+        }
+        if (!permitted) {
+            circuitBreaker.onIgnored();
+            rejectedByLimiter.increment();
+            throw new UpstreamUnavailableException("Слишком много запросов к API sunrise-sunset");
+        }
+        long start = System.nanoTime();
+        try {
+            SunriseSunsetModel response = call(lat, lng, date);
+            circuitBreaker.onSuccess();
+            limiter.onSuccess(Duration.ofNanos(System.nanoTime() - start));
+            return response;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                circuitBreaker.onFailure();
+                limiter.onDropped();
+                throttled.increment();
+                throw new UpstreamUnavailableException("API sunrise-sunset ограничил частоту запросов");
+            }
+            circuitBreaker.onSuccess();
+            limiter.onIgnored();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            limiter.onDropped();
+            throw e;
+        }
+    }
+
+    /**Returns the current state of the circuit breaker.*/
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private SunriseSunsetModel call(double lat, double lng, String date) {
+        String url = String.format(Locale.ROOT, "%s?lat=%f&lng=%f&date=%s&formatted=0", apiUrl, lat, lng, date);
+        SunriseSunsetModel response = restTemplate.getForObject(url, SunriseSunsetModel.class);
+        if (response == null || response.getResults() == null
+                || response.getResults().getSunrise() == null || response.getResults().getSunset() == null) {
+            throw new UpstreamUnavailableException("Некорректный ответ от API sunrise-sunset");
+        }
+        return response;
+    }
+}
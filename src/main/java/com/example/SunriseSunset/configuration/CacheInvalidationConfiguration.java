@@ -0,0 +1,53 @@
+package com.example.SunriseSunset.configuration;
+
+import com.example.SunriseSunset.cache.Cache;
+import com.example.SunriseSunset.cache.InProcessInvalidationTransport;
+import com.example.SunriseSunset.cache.InvalidationBus;
+import com.example.SunriseSunset.cache.InvalidationTransport;
+import com.example.SunriseSunset.cache.PostgresInvalidationTransport;
+import com.example.SunriseSunset.cache.RangeCache;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**Cache invalidation across instances; sun.cache.invalidation.transport selects in-process or postgres.*/
+@Configuration
+public class CacheInvalidationConfiguration {
+    /**Transport that only reaches application contexts in this JVM, for a single instance and for tests.*/
+
+    @Bean
+    @ConditionalOnProperty(name = "sun.cache.invalidation.transport", havingValue = "in-process", matchIfMissing = true)
+    public InProcessInvalidationTransport inProcessInvalidationTransport() {
+        return new InProcessInvalidationTransport();
+    }
+    /**Transport over Postgres LISTEN/NOTIFY on the primary database, for several instances.*/
+
+    @Bean
+    @ConditionalOnProperty(name = "sun.cache.invalidation.transport", havingValue = "postgres")
+    public PostgresInvalidationTransport postgresInvalidationTransport(
+            DataSource dataSource,
+            DataSourceProperties properties,
+            ObjectMapper objectMapper,
+            @Value("${sun.cache.invalidation.channel:sun_cache_invalidation}") String channel,
+            @Value("${sun.cache.invalidation.reconnect-delay:PT5S}") Duration reconnectDelay) {
+        return new PostgresInvalidationTransport(dataSource, objectMapper, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), channel, reconnectDelay);
+    }
+    /**Bus that evicts locally and broadcasts the eviction over the configured transport.*/
+
+    @Bean
+    public InvalidationBus invalidationBus(InvalidationTransport transport,
+                                           Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache,
+                                           RangeCache rangeCache,
+                                           MeterRegistry meterRegistry) {
+        return new InvalidationBus(transport, sunriseSunsetCache, rangeCache, meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.SunriseSunset.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**Sends read-only transactions to the replicas in sun.datasource.replica-urls; active only when it is set.
+ * The lazy proxy fetches the physical connection only at the first statement, when the transaction's
+ * read-only flag is known, and takes it from the replicas or the primary accordingly. This relies on
+ * spring.jpa.open-in-view being off, since an EntityManager holds its connection until it is closed.*/
+@Configuration
+@ConditionalOnProperty("sun.datasource.replica-urls")
+public class ReplicaDataSourceConfiguration {
+    /**Connection pool of the primary, configured by spring.datasource.*.*/
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    /**Read-only connection pools of the replicas, falling back to the primary.*/
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            DataSourceProperties properties,
+            HikariDataSource primaryDataSource,
+            @Value("${sun.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${sun.datasource.replica-max-pool-size:10}") int maxPoolSize,
+            @Value("${sun.datasource.replica-connection-timeout:PT1S}") Duration connectionTimeout,
+            @Value("${sun.datasource.replica-retry-after:PT30S}") Duration retryAfter,
+            MeterRegistry meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(maxPoolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(replicas, primaryDataSource, retryAfter);
+    }
+    /**DataSource used by JPA: the primary, or the replicas inside read-only transactions.*/
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        return proxy;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.SunriseSunset.configuration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**Hands out connections from the replicas in round-robin order and falls back to the primary when none can connect.
+ * A replica that fails to connect is skipped for retryAfter, so requests do not keep waiting on it.*/
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final List<DataSource> replicas;
+    private final DataSource primary;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    /**System.nanoTime() until which each replica is skipped, or 0 if it is not.*/
+    private final AtomicLongArray skippedUntil;
+
+    /**Constructs a ReplicaRoutingDataSource over the given replicas with the primary as fallback.*/
+    public ReplicaRoutingDataSource(List<DataSource> replicas, DataSource primary, Duration retryAfter) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.skippedUntil = new AtomicLongArray(replicas.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            long until = skippedUntil.get(index);
+            if (until != 0 && System.nanoTime() - until < 0) {
+                continue;
+            }
+            try {
+                Connection connection = replicas.get(index).getConnection();
+                skippedUntil.compareAndSet(index, until, 0);
+                return connection;
+            } catch (SQLException e) {
+                skippedUntil.set(index, System.nanoTime() + retryAfterNanos);
+                logger.warn("Replica {} unavailable, skipping it for {} ms: {}",
+                        index, retryAfterNanos / 1_000_000, e.getMessage());
+            }
+        }
+        logger.warn("No replica available, reading from the primary");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Connections use the configured credentials");
+    }
+
+    /**Closes the replica pools; the primary is closed by its owner.*/
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -1,23 +1,105 @@
 package com.example.SunriseSunset.configuration;
 
 import com.example.SunriseSunset.cache.Cache;
+import com.example.SunriseSunset.cache.RangeCache;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.model.LocationEntity;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 /**Class.*/
 
 @Configuration
+@EnableScheduling
 public class SunriseSunsetConfiguration {
-    /**Function.*/
+    /**RestTemplate backed by a pooled HTTP client with bounded connect, read and pool-wait timeouts.*/
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${sun.api.pool.max-total:50}") int maxTotal,
+                                     @Value("${sun.api.pool.max-per-route:20}") int maxPerRoute,
+                                     @Value("${sun.api.connect-timeout:PT2S}") Duration connectTimeout,
+                                     @Value("${sun.api.read-timeout:PT5S}") Duration readTimeout,
+                                     @Value("${sun.api.pool.acquire-timeout:PT1S}") Duration acquireTimeout,
+                                     @Value("${sun.api.pool.idle-timeout:PT30S}") Duration idleTimeout) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(idleTimeout.multipliedBy(10)))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(acquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(idleTimeout))
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .evictExpiredConnections()
+                .build();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
     }
-    /**Function*/
+    /**Cache region of sun-time entries by location name and date, weighed by the number of entries.*/
 
     @Bean
-    public Cache sunriseSunsetCache() {
-        return new Cache();
+    public Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache(
+            @Value("${sun.cache.sun-times.max-weight:100000}") long maxWeight,
+            @Value("${sun.cache.sun-times.ttl:PT10M}") Duration ttl) {
+        return new Cache<>("sun-times", maxWeight, ttl);
     }
-}
\ No newline at end of file
+    /**Cache region of locations by id, sized separately so large sun-time lists cannot push them out.*/
+
+    @Bean
+    public Cache<Integer, LocationEntity> locationCache(@Value("${sun.cache.locations.max-size:10000}") long maxSize,
+                                                        @Value("${sun.cache.locations.ttl:PT1H}") Duration ttl) {
+        return new Cache<>("locations", maxSize, ttl);
+    }
+    /**Per-location range cache that answers sub-ranges of loaded ranges from memory.*/
+
+    @Bean
+    public RangeCache sunriseSunsetRangeCache(@Value("${sun.cache.ranges.max-entries:100000}") long maxEntries,
+                                              @Value("${sun.cache.ranges.ttl:PT10M}") Duration ttl) {
+        return new RangeCache(maxEntries, ttl);
+    }
+    /**CBOR (application/cbor) representation of responses, configured like the JSON mapper.*/
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+    /**Smile (application/x-jackson-smile) representation of responses, configured like the JSON mapper.*/
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+    /**Executor that resolves sun times of batch requests with bounded parallelism.*/
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sunBatchExecutor(@Value("${sun.batch.parallelism:8}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism);
+    }
+}
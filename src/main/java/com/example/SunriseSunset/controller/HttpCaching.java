@@ -0,0 +1,90 @@
+package com.example.SunriseSunset.controller;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**Builds cacheable GET responses: an ETag from a hash of the entries and Cache-Control by the age of the data.
+ * Spring MVC answers a matching If-None-Match with 304 before the body is serialized.
+ * The tag is weak because the same data goes out as JSON, CBOR or Smile, gzipped or not; Tomcat also refuses
+ * to compress responses with a strong tag. Vary: Accept keeps shared caches from mixing the formats up.*/
+@Component
+public class HttpCaching {
+
+    private final Duration historicalMaxAge;
+    private final Clock clock;
+
+    /**Constructs an HttpCaching that lets historical responses be cached for historicalMaxAge.*/
+    @Autowired
+    public HttpCaching(@Value("${sun.http.historical-max-age:P365D}") Duration historicalMaxAge) {
+        this(historicalMaxAge, Clock.systemUTC());
+    }
+
+    /**Constructs an HttpCaching using the given clock.*/
+    public HttpCaching(Duration historicalMaxAge, Clock clock) {
+        this.historicalMaxAge = historicalMaxAge;
+        this.clock = clock;
+    }
+
+    /**Returns 200 with the entries, their ETag and Cache-Control; lastDate is the latest date the entries cover.*/
+    public <T extends Collection<SunriseSunsetDto>> ResponseEntity<T> ok(T entries, LocalDate lastDate) {
+        return ResponseEntity.ok()
+                .eTag(etag(entries))
+                .cacheControl(cacheControl(lastDate))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(entries);
+    }
+
+    /**Returns 200 with the entry, its ETag and Cache-Control.*/
+    public ResponseEntity<SunriseSunsetDto> ok(SunriseSunsetDto entry) {
+        return ResponseEntity.ok()
+                .eTag(etag(List.of(entry)))
+                .cacheControl(cacheControl(LocalDate.parse(entry.getDate())))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(entry);
+    }
+
+    /**Returns a long-lived immutable policy for dates that have ended in every time zone, otherwise revalidation.*/
+    CacheControl cacheControl(LocalDate lastDate) {
+        // The date ends last in UTC-12, at noon UTC of the next day; waiting for the UTC day after that keeps it simple.
+        if (lastDate.isBefore(LocalDate.now(clock).minusDays(1))) {
+            return CacheControl.maxAge(historicalMaxAge).cachePublic().immutable();
+        }
+        return CacheControl.noCache();
+    }
+
+    /**Returns a weak entity tag over every field of the entries, in order.*/
+    static String etag(Collection<SunriseSunsetDto> entries) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder line = new StringBuilder();
+        for (SunriseSunsetDto dto : entries) {
+            line.setLength(0);
+            line.append(dto.getId()).append('|').append(dto.getDate())
+                    .append('|').append(dto.getLatitude()).append('|').append(dto.getLongitude())
+                    .append('|').append(dto.getSunrise()).append('|').append(dto.getSunset())
+                    .append('|').append(dto.getLocationIds()).append('\n');
+            digest.update(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = Arrays.copyOf(digest.digest(), 16);
+        return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.SunriseSunset.controller;
 
+import com.example.SunriseSunset.dto.BatchItemResult;
+import com.example.SunriseSunset.dto.IngestTicketDto;
+import com.example.SunriseSunset.dto.SunTimesPreloadDto;
 import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.dto.SunriseSunsetPageDto;
+import com.example.SunriseSunset.exception.EntryConflictException;
 import com.example.SunriseSunset.exception.ErrorResponse;
+import com.example.SunriseSunset.exception.UpstreamUnavailableException;
 import com.example.SunriseSunset.service.LocationService;
+import com.example.SunriseSunset.service.SunTimesIngestQueue;
 import com.example.SunriseSunset.service.SunriseSunsetService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,12 +22,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 
 /**REST controller for managing sunrise and sunset data.*/
@@ -28,12 +46,20 @@ public class SunriseSunsetController {
 
     private final SunriseSunsetService sunService;
     private final LocationService locationService;
+    private final ObjectMapper objectMapper;
+    private final HttpCaching httpCaching;
+    private final SunTimesIngestQueue ingestQueue;
 
     /**Constructs a new SunriseSunsetController with the specified services.*/
     @Autowired
-    public SunriseSunsetController(SunriseSunsetService sunService, LocationService locationService) {
+    public SunriseSunsetController(SunriseSunsetService sunService, LocationService locationService,
+                                   ObjectMapper objectMapper, HttpCaching httpCaching,
+                                   SunTimesIngestQueue ingestQueue) {
         this.sunService = sunService;
         this.locationService = locationService;
+        this.objectMapper = objectMapper;
+        this.httpCaching = httpCaching;
+        this.ingestQueue = ingestQueue;
     }
 
     /**Creates a new sunrise/sunset entry.*/
@@ -43,6 +69,8 @@ public class SunriseSunsetController {
         @ApiResponse(responseCode = "200", description = "Entry created successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid input data",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "503", description = "Upstream sun API is unavailable or throttling",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -50,16 +78,89 @@ public class SunriseSunsetController {
         try {
             SunriseSunsetDto savedDto = sunService.createSunriseSunset(dto);
             return ResponseEntity.ok(savedDto);
+        } catch (UpstreamUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при создании записи: " + e.getMessage(), e);
         }
     }
 
+    /**Accepts a sunrise/sunset entry for asynchronous creation and returns its ticket.*/
+    @PostMapping(params = "async=true")
+    @Operation(summary = "Create sunrise/sunset entry asynchronously",
+            description = "Queues the record for batched creation; poll the ticket for the outcome")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Entry accepted, see the ticket"),
+        @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "429", description = "Ingestion queue is full, retry later",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<IngestTicketDto> createSunriseSunsetAsync(@Valid @RequestBody SunriseSunsetDto dto) {
+        IngestTicketDto ticket = ingestQueue.submit(dto);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/sun/times/ingest/{ticket}")
+                .buildAndExpand(ticket.getTicket())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(ticket);
+    }
+
+    /**Retrieves the outcome of an asynchronous creation.*/
+    @GetMapping("/ingest/{ticket}")
+    @Operation(summary = "Get asynchronous creation status",
+            description = "Reports whether the queued record is pending, created or failed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ticket found"),
+        @ApiResponse(responseCode = "404", description = "Ticket unknown or expired")
+    })
+    public ResponseEntity<IngestTicketDto> getIngestTicket(
+            @Parameter(description = "Ticket returned by the asynchronous create") @PathVariable String ticket) {
+        IngestTicketDto dto = ingestQueue.getTicket(ticket);
+        return dto != null ? ResponseEntity.ok(dto) : ResponseEntity.notFound().build();
+    }
+
+    /**Creates many sunrise/sunset entries from a JSON array.*/
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Batch create sunrise/sunset entries",
+            description = "Adds many sunrise/sunset records at once and reports a result for every item")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+        @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<BatchItemResult>> createSunriseSunsets(@RequestBody List<SunriseSunsetDto> dtos) {
+        return ResponseEntity.ok(sunService.createSunriseSunsets(dtos));
+    }
+
+    /**Creates many sunrise/sunset entries from an NDJSON stream, one entry per line.*/
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Batch create sunrise/sunset entries from NDJSON",
+            description = "Adds many sunrise/sunset records at once from newline-delimited JSON")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+        @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<BatchItemResult>> createSunriseSunsetsFromNdjson(InputStream body) {
+        List<SunriseSunsetDto> dtos;
+        try (MappingIterator<SunriseSunsetDto> iterator = objectMapper.readerFor(SunriseSunsetDto.class).readValues(body)) {
+            dtos = iterator.readAll();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Некорректный формат NDJSON: " + e.getMessage());
+        }
+        return ResponseEntity.ok(sunService.createSunriseSunsets(dtos));
+    }
+
     /**Retrieves a sunrise/sunset entry by its ID.*/
     @GetMapping("/{id}")
     @Operation(summary = "Get sunrise/sunset by ID", description = "Retrieves a sunrise/sunset record by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Entry found"),
+        @ApiResponse(responseCode = "304", description = "Entry not modified since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Entry not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
@@ -67,7 +168,7 @@ public class SunriseSunsetController {
     public ResponseEntity<SunriseSunsetDto> getSunriseSunsetById(
             @Parameter(description = "ID of the sunrise/sunset entry") @PathVariable Integer id) {
         SunriseSunsetDto dto = sunService.getSunriseSunsetById(id);
-        return dto != null ? ResponseEntity.ok(dto) : ResponseEntity.notFound().build();
+        return dto != null ? httpCaching.ok(dto) : ResponseEntity.notFound().build();
     }
 
     /**Retrieves all sunrise/sunset entries.*/
@@ -83,6 +184,53 @@ public class SunriseSunsetController {
         return ResponseEntity.ok(dtos);
     }
 
+    /**Retrieves a page of sunrise/sunset entries using keyset pagination on id.*/
+    @GetMapping("/all/page")
+    @Operation(summary = "Get a page of sunrise/sunset entries",
+            description = "Retrieves entries with id greater than the cursor; pass nextCursor to get the next page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Page size below 1",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<SunriseSunsetPageDto> getSunriseSunsetPage(
+            @Parameter(description = "Id of the last entry of the previous page") @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Maximum number of entries, at least 1; capped at 1000") @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(sunService.getSunriseSunsetPage(cursor, size));
+    }
+
+    /**Streams all sunrise/sunset entries as newline-delimited JSON.*/
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all sunrise/sunset entries",
+            description = "Streams all records as NDJSON from a database cursor, one entry per line")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Entries streamed successfully"),
+        @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> streamAllSunriseSunsets() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                boolean[] empty = {true};
+                sunService.streamAllSunriseSunsets(dto -> {
+                    try {
+                        writer.write(dto);
+                        empty[0] = false;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!empty[0]) {
+                    writer.flush();
+                    outputStream.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**Updates an existing sunrise/sunset entry.*/
     @PutMapping("/{id}")
     @Operation(summary = "Update sunrise/sunset entry", description = "Updates an existing sunrise/sunset record")
@@ -91,6 +239,8 @@ public class SunriseSunsetController {
         @ApiResponse(responseCode = "404", description = "Entry not found"),
         @ApiResponse(responseCode = "400", description = "Invalid input data",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "409", description = "Another entry has these coordinates and date",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -100,6 +250,8 @@ public class SunriseSunsetController {
         try {
             SunriseSunsetDto updatedDto = sunService.updateSunriseSunset(id, dto);
             return updatedDto != null ? ResponseEntity.ok(updatedDto) : ResponseEntity.notFound().build();
+        } catch (UpstreamUnavailableException | EntryConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при обновлении записи: " + e.getMessage(), e);
         }
@@ -128,6 +280,7 @@ public class SunriseSunsetController {
     @Operation(summary = "Get sunrise/sunset by location and date", description = "Retrieves sunrise/sunset records by location name and date")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Entries retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Entries not modified since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "400", description = "Invalid date format",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -143,7 +296,32 @@ public class SunriseSunsetController {
             throw new IllegalArgumentException("Некорректный формат даты: " + date);
         }
         List<SunriseSunsetDto> dtos = sunService.getSunriseSunsetByLocationAndDate(locationName, localDate);
-        return ResponseEntity.ok(dtos);
+        return httpCaching.ok(dtos, localDate);
+    }
+
+    /**Retrieves sunrise/sunset entries near a point on a date.*/
+    @GetMapping("/near")
+    @Operation(summary = "Get sunrise/sunset near a point",
+            description = "Retrieves records of the date within the radius of the point, nearest first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Entries retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius or date",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<SunriseSunsetDto>> getSunriseSunsetsNear(
+            @Parameter(description = "Latitude of the point") @RequestParam double lat,
+            @Parameter(description = "Longitude of the point") @RequestParam double lng,
+            @Parameter(description = "Search radius in kilometres, up to 1000") @RequestParam double radiusKm,
+            @Parameter(description = "Date in YYYY-MM-DD format") @RequestParam String date) {
+        LocalDate localDate;
+        try {
+            localDate = LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный формат даты: " + date);
+        }
+        return ResponseEntity.ok(sunService.getSunriseSunsetsNear(lat, lng, radiusKm, localDate));
     }
 
     /**Retrieves sunrise/sunset entries by location name and date range.*/
@@ -152,6 +330,7 @@ public class SunriseSunsetController {
             description = "Retrieves sunrise/sunset records by location name and date range")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Entries retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Entries not modified since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "400", description = "Invalid date format",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -173,7 +352,23 @@ public class SunriseSunsetController {
             throw new IllegalArgumentException("Некорректный формат даты: " + startDate + " или " + endDate);
         }
         List<SunriseSunsetDto> dtos = sunService.getSunriseSunsetByLocationAndDateRange(locationName, start, end);
-        return ResponseEntity.ok(dtos);
+        return httpCaching.ok(dtos, end);
+    }
+
+    /**Preloads upstream sun times into the persistent lookup table.*/
+    @PostMapping("/lookup/preload")
+    @Operation(summary = "Preload sun-time lookup",
+            description = "Fetches missing days for the given coordinates and date ranges into the lookup table")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lookup preloaded successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<Map<String, Integer>> preloadLookup(@RequestBody List<SunTimesPreloadDto> requests) {
+        int loaded = sunService.preloadLookup(requests);
+        return ResponseEntity.ok(Map.of("loaded", loaded));
     }
 
     /**Clears the cache of sunrise/sunset data.*/
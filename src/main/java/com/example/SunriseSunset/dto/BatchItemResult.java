@@ -0,0 +1,67 @@
+package com.example.SunriseSunset.dto;
+
+/**Outcome of a single item of a batch create request.*/
+public class BatchItemResult {
+
+    /**Status of a batch item.*/
+    public enum Status {
+        CREATED,
+        EXISTING,
+        FAILED
+    }
+
+    private int index;
+    private Status status;
+    private SunriseSunsetDto entry;
+    private String error;
+
+    /**Default constructor.*/
+    public BatchItemResult() {}
+
+    /**Constructs a BatchItemResult with the specified parameters.*/
+    public BatchItemResult(int index, Status status, SunriseSunsetDto entry, String error) {
+        this.index = index;
+        this.status = status;
+        this.entry = entry;
+        this.error = error;
+    }
+
+    /**Creates a result for an item that was stored successfully.*/
+    public static BatchItemResult created(int index, SunriseSunsetDto entry) {
+        return new BatchItemResult(index, Status.CREATED, entry, null);
+    }
+
+    /**Creates a result for an item whose entry was already stored; only its locations were linked.*/
+    public static BatchItemResult existing(int index, SunriseSunsetDto entry) {
+        return new BatchItemResult(index, Status.EXISTING, entry, null);
+    }
+
+    /**Creates a result for an item that could not be stored.*/
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, Status.FAILED, null, error);
+    }
+
+    /**Returns the position of the item in the request.*/
+    public int getIndex() { return index; }
+
+    /**Sets the position of the item in the request.*/
+    public void setIndex(int index) { this.index = index; }
+
+    /**Returns the status of the item.*/
+    public Status getStatus() { return status; }
+
+    /**Sets the status of the item.*/
+    public void setStatus(Status status) { this.status = status; }
+
+    /**Returns the stored entry, or null if the item failed.*/
+    public SunriseSunsetDto getEntry() { return entry; }
+
+    /**Sets the stored entry.*/
+    public void setEntry(SunriseSunsetDto entry) { this.entry = entry; }
+
+    /**Returns the error message, or null if the item was stored.*/
+    public String getError() { return error; }
+
+    /**Sets the error message.*/
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,53 @@
+package com.example.SunriseSunset.dto;
+
+/**State of an entry accepted for asynchronous creation.*/
+public class IngestTicketDto {
+
+    /**Status of a ticket.*/
+    public enum Status {
+        PENDING,
+        CREATED,
+        EXISTING,
+        FAILED
+    }
+
+    private String ticket;
+    private Status status;
+    private SunriseSunsetDto entry;
+    private String error;
+
+    /**Default constructor.*/
+    public IngestTicketDto() {}
+
+    /**Constructs an IngestTicketDto with the specified parameters.*/
+    public IngestTicketDto(String ticket, Status status, SunriseSunsetDto entry, String error) {
+        this.ticket = ticket;
+        this.status = status;
+        this.entry = entry;
+        this.error = error;
+    }
+
+    /**Returns the ticket identifier.*/
+    public String getTicket() { return ticket; }
+
+    /**Sets the ticket identifier.*/
+    public void setTicket(String ticket) { this.ticket = ticket; }
+
+    /**Returns the status of the entry.*/
+    public Status getStatus() { return status; }
+
+    /**Sets the status of the entry.*/
+    public void setStatus(Status status) { this.status = status; }
+
+    /**Returns the stored entry, or null if it is pending or failed.*/
+    public SunriseSunsetDto getEntry() { return entry; }
+
+    /**Sets the stored entry.*/
+    public void setEntry(SunriseSunsetDto entry) { this.entry = entry; }
+
+    /**Returns the error message, or null if the entry did not fail.*/
+    public String getError() { return error; }
+
+    /**Sets the error message.*/
+    public void setError(String error) { this.error = error; }
+}
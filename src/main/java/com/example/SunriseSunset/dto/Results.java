@@ -7,14 +7,31 @@ public class Results {
     private String sunrise;
     private String sunset;
 
+    /**Default constructor used by Jackson.*/
+    public Results() {}
+
+    /**Constructs results with the specified ISO-8601 sunrise and sunset times.*/
+    public Results(String sunrise, String sunset) {
+        this.sunrise = sunrise;
+        this.sunset = sunset;
+    }
+
     @JsonProperty("sunrise")
     public String getSunrise() {
         return sunrise;
     }
 
+    public void setSunrise(String sunrise) {
+        this.sunrise = sunrise;
+    }
+
     @JsonProperty("sunset")
     public String getSunset() {
         return sunset;
     }
+
+    public void setSunset(String sunset) {
+        this.sunset = sunset;
+    }
 }
 
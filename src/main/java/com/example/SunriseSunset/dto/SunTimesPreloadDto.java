@@ -0,0 +1,46 @@
+package com.example.SunriseSunset.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**Data Transfer Object describing coordinates and a date range to preload into the lookup table.*/
+public class SunTimesPreloadDto {
+    @Min(value = -90, message = "Latitude must be greater than or equal to -90")
+    @Max(value = 90, message = "Latitude must be less than or equal to 90")
+    private double latitude;
+    @Min(value = -180, message = "Longitude must be greater than or equal to -180")
+    @Max(value = 180, message = "Longitude must be less than or equal to 180")
+    private double longitude;
+    @NotNull(message = "Start date must not be null")
+    private String startDate;
+    @NotNull(message = "End date must not be null")
+    private String endDate;
+
+    /**Default constructor for SunTimesPreloadDto.*/
+    public SunTimesPreloadDto() {}
+
+    /**Returns the latitude coordinate.*/
+    public double getLatitude() { return latitude; }
+
+    /**Sets the latitude coordinate.*/
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+
+    /**Returns the longitude coordinate.*/
+    public double getLongitude() { return longitude; }
+
+    /**Sets the longitude coordinate.*/
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+
+    /**Returns the first date to preload in YYYY-MM-DD format.*/
+    public String getStartDate() { return startDate; }
+
+    /**Sets the first date to preload in YYYY-MM-DD format.*/
+    public void setStartDate(String startDate) { this.startDate = startDate; }
+
+    /**Returns the last date to preload in YYYY-MM-DD format.*/
+    public String getEndDate() { return endDate; }
+
+    /**Sets the last date to preload in YYYY-MM-DD format.*/
+    public void setEndDate(String endDate) { this.endDate = endDate; }
+}
@@ -0,0 +1,30 @@
+package com.example.SunriseSunset.dto;
+
+import java.util.List;
+
+/**A page of sunrise/sunset entries with the cursor for the next page.*/
+public class SunriseSunsetPageDto {
+    private List<SunriseSunsetDto> items;
+    private Integer nextCursor;
+
+    /**Default constructor for SunriseSunsetPageDto.*/
+    public SunriseSunsetPageDto() {}
+
+    /**Constructs a page with the specified items and next cursor.*/
+    public SunriseSunsetPageDto(List<SunriseSunsetDto> items, Integer nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**Returns the entries of this page.*/
+    public List<SunriseSunsetDto> getItems() { return items; }
+
+    /**Sets the entries of this page.*/
+    public void setItems(List<SunriseSunsetDto> items) { this.items = items; }
+
+    /**Returns the cursor to pass to get the next page, or null if this is the last page.*/
+    public Integer getNextCursor() { return nextCursor; }
+
+    /**Sets the cursor of the next page.*/
+    public void setNextCursor(Integer nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,10 @@
+package com.example.SunriseSunset.exception;
+
+/**Thrown when a change would give an entry the coordinates and date of another stored entry.*/
+public class EntryConflictException extends RuntimeException {
+
+    /**Constructs the exception with the specified message.*/
+    public EntryConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.SunriseSunset.exception;
+
+/**Thrown when an entry cannot be accepted for asynchronous creation because the ingestion queue is full.*/
+public class IngestQueueFullException extends RuntimeException {
+
+    /**Constructs the exception with the specified message.*/
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.SunriseSunset.exception;
+
+/**Thrown when the sunrise-sunset API is not called because its circuit is open or too many calls are in progress.*/
+public class UpstreamUnavailableException extends RuntimeException {
+
+    /**Constructs the exception with the specified message.*/
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.SunriseSunset.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**Fixed latitude/longitude grid used as a spatial index: every point maps to one integer cell.*/
+public final class GeoGrid {
+
+    /**Cell edge in degrees, about 28 km of latitude.*/
+    public static final double CELL_DEGREES = 0.25;
+    /**Number of cell columns; the extra column holds longitude 180.*/
+    public static final int COLUMNS = (int) (360 / CELL_DEGREES) + 1;
+    /**Maximum number of cells a query may expand to before callers should fall back to a bounding box.*/
+    public static final int MAX_CELLS = 1000;
+    /**Steps per degree, about 11 m each, to which coordinates are rounded for the natural key of an entry.*/
+    public static final int KEY_STEPS_PER_DEGREE = 10000;
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private GeoGrid() {
+    }
+
+    /**Returns the cell of the point.*/
+    public static int cellOf(double lat, double lng) {
+        return row(lat) * COLUMNS + column(lng);
+    }
+
+    /**Returns the coordinate rounded half up to whole key steps.*/
+    public static int keyOf(double degrees) {
+        return (int) Math.floor(degrees * KEY_STEPS_PER_DEGREE + 0.5);
+    }
+
+    /**Returns the cells that intersect the bounding box of the circle, or null if there are more than MAX_CELLS.*/
+    public static List<Integer> cellsWithin(double lat, double lng, double radiusKm) {
+        double[] box = boundingBox(lat, lng, radiusKm);
+        int firstRow = row(box[0]);
+        int lastRow = row(box[1]);
+        List<int[]> columnRanges = new ArrayList<>();
+        if (box[2] <= box[3]) {
+            columnRanges.add(new int[] {column(box[2]), column(box[3])});
+        } else {
+            // The box crosses the antimeridian.
+            columnRanges.add(new int[] {column(box[2]), column(180)});
+            columnRanges.add(new int[] {column(-180), column(box[3])});
+        }
+        long count = 0;
+        for (int[] range : columnRanges) {
+            count += (long) (lastRow - firstRow + 1) * (range[1] - range[0] + 1);
+        }
+        if (count > MAX_CELLS) {
+            return null;
+        }
+        List<Integer> cells = new ArrayList<>((int) count);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int[] range : columnRanges) {
+                for (int column = range[0]; column <= range[1]; column++) {
+                    cells.add(row * COLUMNS + column);
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**Returns {minLat, maxLat, minLng, maxLng} of the circle. minLng is greater than maxLng across the antimeridian.*/
+    public static double[] boundingBox(double lat, double lng, double radiusKm) {
+        double deltaLat = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, lat - deltaLat);
+        double maxLat = Math.min(90, lat + deltaLat);
+        double cos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double deltaLng = cos > 0 ? radiusKm / (KM_PER_DEGREE * cos) : 180;
+        if (deltaLng >= 180 || maxLat == 90 || minLat == -90) {
+            return new double[] {minLat, maxLat, -180, 180};
+        }
+        double minLng = lng - deltaLng;
+        double maxLng = lng + deltaLng;
+        if (minLng < -180) {
+            minLng += 360;
+        }
+        if (maxLng > 180) {
+            maxLng -= 360;
+        }
+        return new double[] {minLat, maxLat, minLng, maxLng};
+    }
+
+    /**Returns the great-circle distance between two points in kilometres (haversine formula).*/
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor((lat + 90) / CELL_DEGREES);
+    }
+
+    private static int column(double lng) {
+        return (int) Math.floor((lng + 180) / CELL_DEGREES);
+    }
+}
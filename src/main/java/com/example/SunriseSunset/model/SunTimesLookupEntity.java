@@ -0,0 +1,105 @@
+package com.example.SunriseSunset.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**Entity class storing an upstream sunrise/sunset response for quantized coordinates and a date.
+ * The keys are only meaningful together with the precision they were quantized with, which is part of the key.*/
+@Entity
+@Table(name = "sun_times_lookup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sun_times_lookup_key",
+                columnNames = {"lat_key", "lng_key", "key_precision", "date"}))
+public class SunTimesLookupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sun_times_lookup_seq")
+    @SequenceGenerator(name = "sun_times_lookup_seq", sequenceName = "sun_times_lookup_seq", allocationSize = 50)
+    private Long id;
+
+    private int latKey;
+    private int lngKey;
+    // Null for rows stored before the column existed; their precision is unknown, so lookups never match them.
+    @Column(name = "key_precision")
+    private Double keyPrecision;
+    private LocalDate date;
+    private OffsetDateTime sunrise;
+    private OffsetDateTime sunset;
+
+    /**Returns the unique identifier of the lookup entry.*/
+    public Long getId() {
+        return id;
+    }
+
+    /**Sets the unique identifier of the lookup entry.*/
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**Returns the latitude divided by the lookup precision and rounded.*/
+    public int getLatKey() {
+        return latKey;
+    }
+
+    /**Sets the quantized latitude.*/
+    public void setLatKey(int latKey) {
+        this.latKey = latKey;
+    }
+
+    /**Returns the longitude divided by the lookup precision and rounded.*/
+    public int getLngKey() {
+        return lngKey;
+    }
+
+    /**Sets the quantized longitude.*/
+    public void setLngKey(int lngKey) {
+        this.lngKey = lngKey;
+    }
+
+    /**Returns the precision in degrees the coordinates were quantized with.*/
+    public Double getKeyPrecision() {
+        return keyPrecision;
+    }
+
+    /**Sets the precision in degrees the coordinates were quantized with.*/
+    public void setKeyPrecision(Double keyPrecision) {
+        this.keyPrecision = keyPrecision;
+    }
+
+    /**Returns the date of the lookup entry.*/
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**Sets the date of the lookup entry.*/
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**Returns the sunrise time.*/
+    public OffsetDateTime getSunrise() {
+        return sunrise;
+    }
+
+    /**Sets the sunrise time.*/
+    public void setSunrise(OffsetDateTime sunrise) {
+        this.sunrise = sunrise;
+    }
+
+    /**Returns the sunset time.*/
+    public OffsetDateTime getSunset() {
+        return sunset;
+    }
+
+    /**Sets the sunset time.*/
+    public void setSunset(OffsetDateTime sunset) {
+        this.sunset = sunset;
+    }
+}
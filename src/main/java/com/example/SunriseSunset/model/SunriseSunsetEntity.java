@@ -1,5 +1,6 @@
 package com.example.SunriseSunset.model;
 
+import com.example.SunriseSunset.geo.GeoGrid;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -8,22 +9,33 @@ import java.util.List;
 
 /**Entity class representing a sunrise and sunset record in the database.*/
 @Entity
+@Table(indexes = @Index(name = "idx_sunrise_sunset_grid_cell_date", columnList = "grid_cell, date"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_sunrise_sunset_lat_lng_date",
+                columnNames = {"lat_key", "lng_key", "date"}))
 public class SunriseSunsetEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sunrise_sunset_seq")
+    @SequenceGenerator(name = "sunrise_sunset_seq", sequenceName = "sunrise_sunset_entity_seq", allocationSize = 50)
     private Integer id;
 
     private LocalDate date;
     private double latitude;
     private double longitude;
+    @Column(name = "grid_cell")
+    private Integer gridCell;
+    @Column(name = "lat_key")
+    private Integer latKey;
+    @Column(name = "lng_key")
+    private Integer lngKey;
     private OffsetDateTime sunrise;
     private OffsetDateTime sunset;
 
+    // No foreign key to the entries: a date-partitioned table can only be referenced together with its date.
     @ManyToMany
     @JoinTable(
             name = "sunrise_sunset_location",
-            joinColumns = @JoinColumn(name = "sunrise_sunset_id"),
+            joinColumns = @JoinColumn(name = "sunrise_sunset_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)),
             inverseJoinColumns = @JoinColumn(name = "location_id")
     )
     private List<LocationEntity> locations = new ArrayList<>();
@@ -97,4 +109,28 @@ public class SunriseSunsetEntity {
     public void setLocations(List<LocationEntity> locations) {
         this.locations = locations;
     }
-}
\ No newline at end of file
+
+    /**Returns the spatial grid cell of the coordinates.*/
+    public Integer getGridCell() {
+        return gridCell;
+    }
+
+    /**Returns the latitude in GeoGrid key steps, part of the natural key.*/
+    public Integer getLatKey() {
+        return latKey;
+    }
+
+    /**Returns the longitude in GeoGrid key steps, part of the natural key.*/
+    public Integer getLngKey() {
+        return lngKey;
+    }
+
+    /**Recomputes the grid cell and the natural key from the coordinates before every insert and update.*/
+    @PrePersist
+    @PreUpdate
+    void updateDerivedColumns() {
+        this.gridCell = GeoGrid.cellOf(latitude, longitude);
+        this.latKey = GeoGrid.keyOf(latitude);
+        this.lngKey = GeoGrid.keyOf(longitude);
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.SunriseSunset.repository;
 
 import com.example.SunriseSunset.model.LocationEntity;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 /**Repository interface for LocationEntity.*/
 
 public interface LocationRepository extends JpaRepository<LocationEntity, Integer> {
+    /**Finds the next locations after the given id in id order, for keyset pagination.*/
+    List<LocationEntity> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.SunriseSunset.repository;
+
+import com.example.SunriseSunset.model.SunTimesLookupEntity;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**Repository interface for SunTimesLookupEntity, keyed by quantized coordinates and date.*/
+public interface SunTimesLookupRepository extends JpaRepository<SunTimesLookupEntity, Long> {
+    /**Finds the stored response for the coordinates quantized with the precision and the date.*/
+    Optional<SunTimesLookupEntity> findByLatKeyAndLngKeyAndKeyPrecisionAndDate(int latKey, int lngKey,
+                                                                               Double keyPrecision, LocalDate date);
+
+    /**Finds all stored responses for the coordinates quantized with the precision within a date range.*/
+    List<SunTimesLookupEntity> findByLatKeyAndLngKeyAndKeyPrecisionAndDateBetween(int latKey, int lngKey,
+                                                                                  Double keyPrecision,
+                                                                                  LocalDate startDate,
+                                                                                  LocalDate endDate);
+}
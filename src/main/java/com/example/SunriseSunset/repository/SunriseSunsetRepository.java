@@ -1,9 +1,21 @@
 package com.example.SunriseSunset.repository;
 
+import com.example.SunriseSunset.geo.GeoGrid;
 import com.example.SunriseSunset.model.SunriseSunsetEntity;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 
 
@@ -14,4 +26,128 @@ public interface SunriseSunsetRepository extends JpaRepository<SunriseSunsetEnti
 
     /**Finds all sunrise/sunset entries associated with a location name within a date range.*/
     List<SunriseSunsetEntity> findByLocationsNameAndDateBetween(String name, LocalDate startDate, LocalDate endDate);
+
+    /**Finds an entry by id together with its locations in one query.*/
+    @EntityGraph(attributePaths = "locations")
+    Optional<SunriseSunsetEntity> findWithLocationsById(Integer id);
+
+    /**Finds all entries together with their locations in one query.*/
+    @Query("select distinct s from SunriseSunsetEntity s left join fetch s.locations order by s.id")
+    List<SunriseSunsetEntity> findAllWithLocations();
+
+    /**Finds entries linked to a location name on a date, fetching all of their locations in one query.
+     * Both the query and its subquery filter on the date, so a partitioned table is scanned in one partition only.*/
+    @Query("select distinct s from SunriseSunsetEntity s left join fetch s.locations where s.date = :date"
+            + " and s.id in (select s2.id from SunriseSunsetEntity s2 join s2.locations l"
+            + " where l.name = :name and s2.date = :date)")
+    List<SunriseSunsetEntity> findWithLocationsByLocationNameAndDate(@Param("name") String name,
+                                                                     @Param("date") LocalDate date);
+
+    /**Finds entries linked to a location name within a date range, fetching all of their locations in one query.*/
+    @Query("select distinct s from SunriseSunsetEntity s left join fetch s.locations"
+            + " where s.date between :startDate and :endDate"
+            + " and s.id in (select s2.id from SunriseSunsetEntity s2 join s2.locations l"
+            + " where l.name = :name and s2.date between :startDate and :endDate)"
+            + " order by s.date")
+    List<SunriseSunsetEntity> findWithLocationsByLocationNameAndDateBetween(@Param("name") String name,
+                                                                            @Param("startDate") LocalDate startDate,
+                                                                            @Param("endDate") LocalDate endDate);
+
+    /**Finds the next entries after the given id in id order, for keyset pagination.*/
+    List<SunriseSunsetEntity> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    /**Finds the entry with the latest date linked to the location.*/
+    Optional<SunriseSunsetEntity> findFirstByLocationsIdOrderByDateDesc(Integer locationId);
+
+    /**Finds the dates within the range that already have an entry linked to the location.*/
+    @Query("select distinct s.date from SunriseSunsetEntity s join s.locations l"
+            + " where l.id = :locationId and s.date between :startDate and :endDate")
+    List<LocalDate> findDatesByLocationIdAndDateBetween(@Param("locationId") Integer locationId,
+                                                        @Param("startDate") LocalDate startDate,
+                                                        @Param("endDate") LocalDate endDate);
+
+    /**Finds entries in the given grid cells on a date, fetching their locations in one query.*/
+    @Query("select distinct s from SunriseSunsetEntity s left join fetch s.locations"
+            + " where s.gridCell in :cells and s.date = :date")
+    List<SunriseSunsetEntity> findWithLocationsByGridCellInAndDate(@Param("cells") Collection<Integer> cells,
+                                                                   @Param("date") LocalDate date);
+
+    /**Finds entries within a latitude band on a date, for areas too large for a grid-cell lookup.*/
+    @Query("select distinct s from SunriseSunsetEntity s left join fetch s.locations"
+            + " where s.date = :date and s.latitude between :minLat and :maxLat")
+    List<SunriseSunsetEntity> findWithLocationsByDateAndLatitudeBetween(@Param("date") LocalDate date,
+                                                                        @Param("minLat") double minLat,
+                                                                        @Param("maxLat") double maxLat);
+
+    /**Sets the grid cell of entries stored before the column existed, using the formula of GeoGrid.cellOf.*/
+    @Modifying
+    @Query("update SunriseSunsetEntity s set s.gridCell ="
+            + " cast(floor((s.latitude + 90) / " + GeoGrid.CELL_DEGREES + ") as Integer) * " + GeoGrid.COLUMNS
+            + " + cast(floor((s.longitude + 180) / " + GeoGrid.CELL_DEGREES + ") as Integer)"
+            + " where s.gridCell is null")
+    int backfillGridCells();
+
+    /**Finds the entry with the natural key, fetching its locations.*/
+    @Query("select s from SunriseSunsetEntity s left join fetch s.locations"
+            + " where s.latKey = :latKey and s.lngKey = :lngKey and s.date = :date")
+    Optional<SunriseSunsetEntity> findWithLocationsByLatKeyAndLngKeyAndDate(@Param("latKey") int latKey,
+                                                                            @Param("lngKey") int lngKey,
+                                                                            @Param("date") LocalDate date);
+
+    /**Finds entries whose key parts are each in the given sets, fetching their locations.
+     * The result is a superset of the entries with exactly the given keys.*/
+    @Query("select distinct s from SunriseSunsetEntity s left join fetch s.locations"
+            + " where s.date in :dates and s.latKey in :latKeys and s.lngKey in :lngKeys")
+    List<SunriseSunsetEntity> findWithLocationsByKeyParts(@Param("dates") Collection<LocalDate> dates,
+                                                          @Param("latKeys") Collection<Integer> latKeys,
+                                                          @Param("lngKeys") Collection<Integer> lngKeys);
+
+    /**Sets the natural key of entries stored before the column existed, using the formula of GeoGrid.keyOf.
+     * Of several entries with the same key only the oldest gets it; the others keep a null key until merged.*/
+    @Modifying
+    @Query("update SunriseSunsetEntity s set"
+            + " s.latKey = cast(floor(s.latitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5) as Integer),"
+            + " s.lngKey = cast(floor(s.longitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5) as Integer)"
+            + " where s.latKey is null and not exists (select 1 from SunriseSunsetEntity o"
+            + " where o.id <> s.id and o.date = s.date and (o.id < s.id or o.latKey is not null)"
+            + " and floor(o.latitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " = floor(s.latitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " and floor(o.longitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " = floor(s.longitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5))")
+    int backfillNaturalKeys();
+
+    /**Links the locations of entries left without a natural key by backfillNaturalKeys to the entry holding
+     * their key, skipping locations it is linked to already.*/
+    @Modifying
+    @Query(value = "insert into sunrise_sunset_location (sunrise_sunset_id, location_id)"
+            + " select distinct k.id, l.location_id from sunrise_sunset_location l"
+            + " join sunrise_sunset_entity d on d.id = l.sunrise_sunset_id"
+            + " join sunrise_sunset_entity k on k.date = d.date"
+            + " and k.lat_key = floor(d.latitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " and k.lng_key = floor(d.longitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " where d.lat_key is null and not exists (select 1 from sunrise_sunset_location e"
+            + " where e.sunrise_sunset_id = k.id and e.location_id = l.location_id)", nativeQuery = true)
+    int linkDuplicateLocationsToKeyHolders();
+
+    /**Removes the location links of entries without a natural key whose key is held by another entry.*/
+    @Modifying
+    @Query(value = "delete from sunrise_sunset_location where sunrise_sunset_id in (select d.id"
+            + " from sunrise_sunset_entity d join sunrise_sunset_entity k on k.date = d.date"
+            + " and k.lat_key = floor(d.latitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " and k.lng_key = floor(d.longitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " where d.lat_key is null)", nativeQuery = true)
+    int deleteDuplicateLocationLinks();
+
+    /**Deletes the entries without a natural key whose key is held by another entry.*/
+    @Modifying
+    @Query("delete from SunriseSunsetEntity d where d.latKey is null and exists (select 1 from SunriseSunsetEntity k"
+            + " where k.date = d.date"
+            + " and k.latKey = floor(d.latitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5)"
+            + " and k.lngKey = floor(d.longitude * " + GeoGrid.KEY_STEPS_PER_DEGREE + " + 0.5))")
+    int deleteDuplicates();
+
+    /**Streams all entries in id order from a forward-only cursor. Must be consumed inside a transaction.*/
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from SunriseSunsetEntity s left join fetch s.locations order by s.id")
+    Stream<SunriseSunsetEntity> streamAllOrderById();
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.repository.SunriseSunsetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**Fills the grid cell of entries stored before the spatial index existed, once at startup.*/
+@Component
+public class GridCellBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridCellBackfill.class);
+
+    private final SunriseSunsetRepository sunriseSunsetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**Constructs a GridCellBackfill.*/
+    public GridCellBackfill(SunriseSunsetRepository sunriseSunsetRepository, TransactionTemplate transactionTemplate) {
+        this.sunriseSunsetRepository = sunriseSunsetRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**Updates all entries without a grid cell in one statement.*/
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer updated = transactionTemplate.execute(status -> sunriseSunsetRepository.backfillGridCells());
+        if (updated != null && updated > 0) {
+            logger.info("Backfilled grid cells of {} entries", updated);
+        }
+    }
+}
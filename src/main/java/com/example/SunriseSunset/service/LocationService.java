@@ -5,12 +5,11 @@ import com.example.SunriseSunset.dto.LocationDto;
 import com.example.SunriseSunset.model.LocationEntity;
 import com.example.SunriseSunset.repository.LocationRepository;
 import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 /**Service class for managing locations.*/
@@ -20,33 +19,25 @@ public class LocationService {
     private static final Logger logger = LoggerFactory.getLogger(LocationService.class);
 
     private final LocationRepository locationRepository;
-    private final Cache sunriseSunsetCache;
+    private final Cache<Integer, LocationEntity> locationCache;
+    private final TransactionTemplate readOnlyTransactionTemplate;
 
     /**Constructs a LocationService with the specified dependencies.*/
     @Autowired
-    public LocationService(LocationRepository locationRepository, Cache sunriseSunsetCache) {
+    public LocationService(LocationRepository locationRepository, Cache<Integer, LocationEntity> locationCache,
+                           TransactionTemplate transactionTemplate) {
         this.locationRepository = locationRepository;
-        this.sunriseSunsetCache = sunriseSunsetCache;
+        this.locationCache = locationCache;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
     /**Retrieves a location by its ID, using the cache if available.*/
     public LocationEntity getLocationById(Integer id) {
-        String cacheKey = "location_" + id;
-        if (sunriseSunsetCache.containsKey(cacheKey)) {
-            logger.info("Returning location from cache for key: {}", cacheKey);
-            @SuppressWarnings("unchecked")
-            List<LocationEntity> cachedLocations = (List<LocationEntity>) sunriseSunsetCache.get(cacheKey);
-            return cachedLocations.get(0);
-        }
-
-        Optional<LocationEntity> entity = locationRepository.findById(id);
-        if (entity.isPresent()) {
-            LocationEntity location = entity.get();
-            sunriseSunsetCache.put(cacheKey, Collections.singletonList(location));
-            logger.info("Saved location to cache for key: {}", cacheKey);
-            return location;
-        }
-        return null;
+        return locationCache.getOrCompute(id, key -> {
+            logger.info("Loading location {} into cache", key);
+            return readOnlyTransactionTemplate.execute(status -> locationRepository.findById(key).orElse(null));
+        });
     }
 
     /**Creates a new location and saves it to the repository.*/
@@ -57,9 +48,8 @@ public class LocationService {
         entity.setSunriseSunsets(Collections.emptyList());
 
         LocationEntity savedEntity = locationRepository.save(entity);
-        String cacheKey = "location_" + savedEntity.getId();
-        sunriseSunsetCache.put(cacheKey, Collections.singletonList(savedEntity));
-        logger.info("Saved new location to cache for key: {}", cacheKey);
+        locationCache.put(savedEntity.getId(), savedEntity);
+        logger.info("Saved new location {} to cache", savedEntity.getId());
         return savedEntity;
     }
 }
\ No newline at end of file
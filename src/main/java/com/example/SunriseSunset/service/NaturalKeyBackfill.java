@@ -0,0 +1,43 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.repository.SunriseSunsetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**Fills the natural key of entries stored before the unique constraint existed, once at startup.
+ * Older duplicates of a key are merged into the entry that gets it: their location links move over and they are deleted.*/
+@Component
+public class NaturalKeyBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(NaturalKeyBackfill.class);
+
+    private final SunriseSunsetRepository sunriseSunsetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**Constructs a NaturalKeyBackfill.*/
+    public NaturalKeyBackfill(SunriseSunsetRepository sunriseSunsetRepository, TransactionTemplate transactionTemplate) {
+        this.sunriseSunsetRepository = sunriseSunsetRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**Updates all entries without a natural key and merges the duplicates in one transaction.*/
+    @Override
+    public void run(ApplicationArguments args) {
+        int[] counts = transactionTemplate.execute(status -> {
+            int updated = sunriseSunsetRepository.backfillNaturalKeys();
+            sunriseSunsetRepository.linkDuplicateLocationsToKeyHolders();
+            sunriseSunsetRepository.deleteDuplicateLocationLinks();
+            return new int[] {updated, sunriseSunsetRepository.deleteDuplicates()};
+        });
+        if (counts[0] > 0) {
+            logger.info("Backfilled natural keys of {} entries", counts[0]);
+        }
+        if (counts[1] > 0) {
+            logger.info("Merged {} duplicate entries into the entries holding their keys", counts[1]);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.SunriseSunset.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**Maintains the monthly partitions of sunrise_sunset_entity on Postgres, once the table has been converted with
+ * db/partition-sunrise-sunset.sql: creates the partitions of the coming months and moves partitions older than the
+ * retention period, with their location links, into the archive tables.*/
+@Component
+@ConditionalOnProperty(name = "sun.partitioning.enabled", havingValue = "true")
+public class PartitionMaintenanceJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+
+    private static final String TABLE = "sunrise_sunset_entity";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String ARCHIVE_TABLE = TABLE + "_archive";
+    private static final String LINK_TABLE = "sunrise_sunset_location";
+    private static final String ARCHIVE_LINK_TABLE = LINK_TABLE + "_archive";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SunriseSunsetService sunriseSunsetService;
+    private final ZoneId zone;
+    private final int monthsAhead;
+    private final Period retention;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter created;
+    private final Counter archived;
+    private final Counter failures;
+
+    /**Constructs a PartitionMaintenanceJob with the configured horizon and retention.*/
+    public PartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   SunriseSunsetService sunriseSunsetService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${sun.partitioning.zone:UTC}") ZoneId zone,
+                                   @Value("${sun.partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${sun.partitioning.retention:P5Y}") Period retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sunriseSunsetService = sunriseSunsetService;
+        this.zone = zone;
+        this.monthsAhead = monthsAhead;
+        this.retention = retention;
+        this.created = meterRegistry.counter("sun.partitioning.partitions.created");
+        this.archived = meterRegistry.counter("sun.partitioning.partitions.archived");
+        this.failures = meterRegistry.counter("sun.partitioning.failures");
+    }
+
+    /**Runs once at startup, so partitions exist before the first nightly run.*/
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    /**Creates missing future partitions and archives expired ones. Skipped if the previous run is still in progress.*/
+    @Scheduled(cron = "${sun.partitioning.cron:0 0 1 * * *}", zone = "${sun.partitioning.zone:UTC}")
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (!isPartitioned()) {
+                logger.warn("Table {} is not partitioned; run db/partition-sunrise-sunset.sql to convert it", TABLE);
+                return;
+            }
+            LocalDate month = LocalDate.now(zone).withDayOfMonth(1);
+            List<String> partitions = partitions(TABLE);
+            for (int i = 0; i <= monthsAhead; i++) {
+                LocalDate start = month.plusMonths(i);
+                if (!partitions.contains(partitionName(start))) {
+                    createPartition(start);
+                }
+            }
+            LocalDate cutoff = month.minus(retention);
+            for (String partition : partitions) {
+                LocalDate start = partitionMonth(partition);
+                if (start != null && !start.plusMonths(1).isAfter(cutoff)) {
+                    archivePartition(partition, start);
+                }
+            }
+        } catch (DataAccessException e) {
+            failures.increment();
+            logger.warn("Partition maintenance failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_partitioned_table p join pg_class c on c.oid = p.partrelid"
+                        + " where c.relname = ? and pg_table_is_visible(c.oid))", Boolean.class, TABLE));
+    }
+
+    private List<String> partitions(String parent) {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i"
+                + " join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent"
+                + " where p.relname = ? and pg_table_is_visible(p.oid) order by c.relname", String.class, parent);
+    }
+
+    /**Creates the partition of the month, moving rows of that month out of the default partition first,
+     * since attaching a range that the default partition already holds rows of would fail.*/
+    private void createPartition(LocalDate start) {
+        String name = partitionName(start);
+        LocalDate end = start.plusMonths(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("create table " + name + " (like " + TABLE + " including defaults including constraints)");
+            int moved = jdbcTemplate.update("with moved as (delete from " + DEFAULT_PARTITION
+                    + " where date >= ? and date < ? returning *) insert into " + name + " select * from moved",
+                    start, end);
+            jdbcTemplate.execute("alter table " + TABLE + " attach partition " + name
+                    + " for values from ('" + start + "') to ('" + end + "')");
+            logger.info("Created partition {}, moving {} rows from the default partition", name, moved);
+        });
+        created.increment();
+    }
+
+    /**Detaches the partition and attaches it to the archive table; its location links move to the archive
+     * link table, so archived entries no longer appear in queries of their locations.*/
+    private void archivePartition(String name, LocalDate start) {
+        ensureArchiveTables();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("alter table " + TABLE + " detach partition " + name);
+            int links = jdbcTemplate.update("with moved as (delete from " + LINK_TABLE
+                    + " where sunrise_sunset_id in (select id from " + name + ") returning *)"
+                    + " insert into " + ARCHIVE_LINK_TABLE + " select * from moved");
+            jdbcTemplate.execute("alter table " + ARCHIVE_TABLE + " attach partition " + name
+                    + " for values from ('" + start + "') to ('" + start.plusMonths(1) + "')");
+            logger.info("Archived partition {} with {} location links", name, links);
+        });
+        archived.increment();
+        sunriseSunsetService.clearCache();
+    }
+
+    private void ensureArchiveTables() {
+        jdbcTemplate.execute("create table if not exists " + ARCHIVE_TABLE
+                + " (like " + TABLE + " including defaults) partition by range (date)");
+        jdbcTemplate.execute("create table if not exists " + ARCHIVE_LINK_TABLE + " (like " + LINK_TABLE + ")");
+    }
+
+    /**Returns the name of the partition holding the month starting at start.*/
+    static String partitionName(LocalDate start) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(start);
+    }
+
+    /**Returns the first day of the month a partition holds, or null if the name is not a monthly partition.*/
+    static LocalDate partitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            String suffix = partition.substring(PARTITION_PREFIX.length());
+            return LocalDate.parse(suffix + "01", DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.dto.BatchItemResult;
+import com.example.SunriseSunset.dto.IngestTicketDto;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.exception.IngestQueueFullException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**Accepts entries for asynchronous creation into a bounded queue; workers create them in batches
+ * through {@link SunriseSunsetService#createSunriseSunsets} and record the outcome under a ticket.*/
+@Component
+public class SunTimesIngestQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunTimesIngestQueue.class);
+
+    private final SunriseSunsetService sunriseSunsetService;
+    private final BlockingQueue<Job> queue;
+    private final Cache<String, IngestTicketDto> tickets;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final Duration shutdownTimeout;
+    private final ExecutorService workers;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter created;
+    private final Counter failed;
+    private volatile boolean running = true;
+
+    /**Constructs a SunTimesIngestQueue and starts its workers.*/
+    public SunTimesIngestQueue(SunriseSunsetService sunriseSunsetService,
+                               MeterRegistry meterRegistry,
+                               @Value("${sun.ingest.queue-capacity:10000}") int queueCapacity,
+                               @Value("${sun.ingest.workers:2}") int workerCount,
+                               @Value("${sun.ingest.batch-size:100}") int batchSize,
+                               @Value("${sun.ingest.max-delay:PT0.2S}") Duration maxDelay,
+                               @Value("${sun.ingest.ticket-ttl:PT1H}") Duration ticketTtl,
+                               @Value("${sun.ingest.max-tickets:100000}") long maxTickets,
+                               @Value("${sun.ingest.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.sunriseSunsetService = sunriseSunsetService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(maxTickets)
+                .expireAfterWrite(ticketTtl)
+                .build();
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.shutdownTimeout = shutdownTimeout;
+        this.accepted = meterRegistry.counter("sun.ingest.accepted");
+        this.rejected = meterRegistry.counter("sun.ingest.rejected");
+        this.created = meterRegistry.counter("sun.ingest.created");
+        this.failed = meterRegistry.counter("sun.ingest.failed");
+        meterRegistry.gaugeCollectionSize("sun.ingest.queue.size", List.of(), queue);
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**Queues the entry and returns its pending ticket, or throws IngestQueueFullException if the queue is full.*/
+    public IngestTicketDto submit(SunriseSunsetDto dto) {
+        if (!running) {
+            throw new IngestQueueFullException("Приём записей остановлен");
+        }
+        IngestTicketDto ticket = new IngestTicketDto(UUID.randomUUID().toString(), IngestTicketDto.Status.PENDING,
+                null, null);
+        tickets.put(ticket.getTicket(), ticket);
+        if (!queue.offer(new Job(ticket.getTicket(), dto))) {
+            tickets.invalidate(ticket.getTicket());
+            rejected.increment();
+            throw new IngestQueueFullException("Очередь на создание записей переполнена, повторите позже");
+        }
+        accepted.increment();
+        return ticket;
+    }
+
+    /**Returns the current state of the ticket, or null if it is unknown or expired.*/
+    public IngestTicketDto getTicket(String ticket) {
+        return tickets.getIfPresent(ticket);
+    }
+
+    private void work() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Job first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Waits up to maxDelay for the batch to fill, so a trickle of requests is still written in batches.
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Job next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Job> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<SunriseSunsetDto> dtos = new ArrayList<>(batch.size());
+        for (Job job : batch) {
+            dtos.add(job.dto());
+        }
+        try {
+            List<BatchItemResult> results = sunriseSunsetService.createSunriseSunsets(dtos);
+            for (int i = 0; i < batch.size(); i++) {
+                BatchItemResult result = results.get(i);
+                if (result.getStatus() == BatchItemResult.Status.CREATED) {
+                    complete(batch.get(i), IngestTicketDto.Status.CREATED, result.getEntry(), null);
+                    created.increment();
+                } else if (result.getStatus() == BatchItemResult.Status.EXISTING) {
+                    complete(batch.get(i), IngestTicketDto.Status.EXISTING, result.getEntry(), null);
+                } else {
+                    complete(batch.get(i), IngestTicketDto.Status.FAILED, null, result.getError());
+                    failed.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to create batch of {} queued entries: {}", batch.size(), e.getMessage());
+            for (Job job : batch) {
+                complete(job, IngestTicketDto.Status.FAILED, null, e.getMessage());
+            }
+            failed.increment(batch.size());
+        }
+    }
+
+    private void complete(Job job, IngestTicketDto.Status status, SunriseSunsetDto entry, String error) {
+        tickets.put(job.ticket(), new IngestTicketDto(job.ticket(), status, entry, error));
+    }
+
+    /**Stops accepting entries and lets the workers drain the queue for up to the shutdown timeout.*/
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            logger.warn("Dropping {} queued entries on shutdown", queue.size());
+            workers.shutdownNow();
+        }
+    }
+
+    /**Queued entry with its ticket.*/
+    private record Job(String ticket, SunriseSunsetDto dto) {
+    }
+}
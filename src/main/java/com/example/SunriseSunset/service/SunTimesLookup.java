@@ -0,0 +1,122 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.dto.Results;
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import com.example.SunriseSunset.model.SunTimesLookupEntity;
+import com.example.SunriseSunset.repository.SunTimesLookupRepository;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**Durable table of upstream sun-time responses keyed by coordinates rounded to a configurable precision and date.*/
+@Component
+public class SunTimesLookup {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunTimesLookup.class);
+
+    private final SunTimesLookupRepository lookupRepository;
+    private final boolean enabled;
+    private final double precision;
+
+    /**Constructs a SunTimesLookup with the specified precision in degrees.*/
+    public SunTimesLookup(SunTimesLookupRepository lookupRepository,
+                          @Value("${sun.lookup.enabled:true}") boolean enabled,
+                          @Value("${sun.lookup.precision:0.01}") double precision) {
+        this.lookupRepository = lookupRepository;
+        this.enabled = enabled;
+        this.precision = precision;
+    }
+
+    /**Returns the stored response for the coordinates and date, if any.*/
+    public Optional<SunriseSunsetModel> find(double lat, double lng, LocalDate date) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return lookupRepository.findByLatKeyAndLngKeyAndKeyPrecisionAndDate(quantize(lat), quantize(lng), precision, date)
+                .map(SunTimesLookup::toModel);
+    }
+
+    /**Returns the dates within the range that are already stored for the coordinates.*/
+    public Set<LocalDate> findStoredDates(double lat, double lng, LocalDate startDate, LocalDate endDate) {
+        return lookupRepository.findByLatKeyAndLngKeyAndKeyPrecisionAndDateBetween(quantize(lat), quantize(lng), precision,
+                        startDate, endDate).stream()
+                .map(SunTimesLookupEntity::getDate)
+                .collect(Collectors.toSet());
+    }
+
+    /**Stores a response, ignoring the write if another caller stored the same key first.*/
+    public void store(double lat, double lng, LocalDate date, SunriseSunsetModel model) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            lookupRepository.save(toEntity(lat, lng, date, model));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Lookup entry for lat={}, lng={}, date={} already stored", lat, lng, date);
+        }
+    }
+
+    /**Stores many responses for the same coordinates in one batch, skipping dates already stored, and returns
+     * how many were added. If a concurrent caller stores one of the dates first, it falls back to one by one.*/
+    public int storeAll(double lat, double lng, List<LocalDate> dates, List<SunriseSunsetModel> models) {
+        if (!enabled || dates.isEmpty()) {
+            return 0;
+        }
+        Set<LocalDate> stored = findStoredDates(lat, lng, Collections.min(dates), Collections.max(dates));
+        List<SunTimesLookupEntity> entities = new ArrayList<>(dates.size());
+        for (int i = 0; i < dates.size(); i++) {
+            if (!stored.contains(dates.get(i))) {
+                entities.add(toEntity(lat, lng, dates.get(i), models.get(i)));
+            }
+        }
+        try {
+            lookupRepository.saveAll(entities);
+            return entities.size();
+        } catch (DataIntegrityViolationException e) {
+            int added = 0;
+            for (SunTimesLookupEntity entity : entities) {
+                // The rolled-back batch assigned ids that were never stored.
+                entity.setId(null);
+                try {
+                    lookupRepository.save(entity);
+                    added++;
+                } catch (DataIntegrityViolationException duplicate) {
+                    logger.debug("Lookup entry for lat={}, lng={}, date={} already stored", lat, lng, entity.getDate());
+                }
+            }
+            return added;
+        }
+    }
+
+    private SunTimesLookupEntity toEntity(double lat, double lng, LocalDate date, SunriseSunsetModel model) {
+        SunTimesLookupEntity entity = new SunTimesLookupEntity();
+        entity.setLatKey(quantize(lat));
+        entity.setLngKey(quantize(lng));
+        entity.setKeyPrecision(precision);
+        entity.setDate(date);
+        entity.setSunrise(OffsetDateTime.parse(model.getResults().getSunrise()));
+        entity.setSunset(OffsetDateTime.parse(model.getResults().getSunset()));
+        return entity;
+    }
+
+    private int quantize(double degrees) {
+        return (int) Math.round(degrees / precision);
+    }
+
+    private static SunriseSunsetModel toModel(SunTimesLookupEntity entity) {
+        SunriseSunsetModel model = new SunriseSunsetModel();
+        model.setResults(new Results(entity.getSunrise().toString(), entity.getSunset().toString()));
+        model.setStatus("OK");
+        return model;
+    }
+}
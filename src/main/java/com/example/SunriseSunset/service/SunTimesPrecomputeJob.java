@@ -0,0 +1,146 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.model.LocationEntity;
+import com.example.SunriseSunset.repository.LocationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**Nightly job that materializes the upcoming days of every location and warms the caches with them.*/
+@Component
+public class SunTimesPrecomputeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunTimesPrecomputeJob.class);
+
+    private final SunriseSunsetService sunriseSunsetService;
+    private final LocationRepository locationRepository;
+    private final boolean enabled;
+    private final ZoneId zone;
+    private final int days;
+    private final int batchSize;
+    private final Duration cacheTtl;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong locationsTotal = new AtomicLong();
+    private final AtomicLong locationsDone = new AtomicLong();
+    private final AtomicLong lastSuccess = new AtomicLong();
+    private final Counter entriesCreated;
+    private final Counter failures;
+    private final Timer duration;
+
+    /**Constructs a SunTimesPrecomputeJob with the configured horizon and parallelism.*/
+    public SunTimesPrecomputeJob(SunriseSunsetService sunriseSunsetService,
+                                 LocationRepository locationRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${sun.precompute.enabled:true}") boolean enabled,
+                                 @Value("${sun.precompute.zone:UTC}") ZoneId zone,
+                                 @Value("${sun.precompute.days:7}") int days,
+                                 @Value("${sun.precompute.batch-size:100}") int batchSize,
+                                 @Value("${sun.precompute.parallelism:4}") int parallelism,
+                                 @Value("${sun.precompute.cache-ttl:PT24H}") Duration cacheTtl) {
+        this.sunriseSunsetService = sunriseSunsetService;
+        this.locationRepository = locationRepository;
+        this.enabled = enabled;
+        this.zone = zone;
+        this.days = days;
+        this.batchSize = batchSize;
+        this.cacheTtl = cacheTtl;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+        this.entriesCreated = meterRegistry.counter("sun.precompute.entries.created");
+        this.failures = meterRegistry.counter("sun.precompute.failures");
+        this.duration = meterRegistry.timer("sun.precompute.duration");
+        meterRegistry.gauge("sun.precompute.locations.total", locationsTotal);
+        meterRegistry.gauge("sun.precompute.locations.done", locationsDone);
+        meterRegistry.gauge("sun.precompute.last.success", lastSuccess);
+    }
+
+    /**Walks all locations in id order, a batch at a time. Skipped if the previous run is still in progress.
+     * The time of the last success is only recorded when every location was precomputed.*/
+    @Scheduled(cron = "${sun.precompute.cron:0 30 0 * * *}", zone = "${sun.precompute.zone:UTC}")
+    public void run() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (duration.record(this::precomputeAll)) {
+                lastSuccess.set(System.currentTimeMillis() / 1000);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**Returns whether every location was precomputed without failures or interruption.*/
+    private boolean precomputeAll() {
+        LocalDate today = LocalDate.now(zone);
+        locationsTotal.set(locationRepository.count());
+        locationsDone.set(0);
+        logger.info("Precomputing {} days from {} for {} locations", days, today, locationsTotal.get());
+
+        AtomicBoolean failed = new AtomicBoolean();
+        Integer cursor = 0;
+        List<LocationEntity> page = locationRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(batchSize));
+        while (!page.isEmpty()) {
+            List<Callable<Void>> tasks = new ArrayList<>(page.size());
+            for (LocationEntity location : page) {
+                tasks.add(() -> {
+                    if (!precompute(location, today)) {
+                        failed.set(true);
+                    }
+                    return null;
+                });
+            }
+            try {
+                executor.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Precomputation interrupted after {} locations", locationsDone.get());
+                return false;
+            }
+            cursor = page.get(page.size() - 1).getId();
+            page = locationRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(batchSize));
+        }
+        if (failed.get()) {
+            logger.warn("Precomputation finished for {} locations with failures", locationsDone.get());
+            return false;
+        }
+        logger.info("Precomputation finished for {} locations", locationsDone.get());
+        return true;
+    }
+
+    private boolean precompute(LocationEntity location, LocalDate today) {
+        try {
+            entriesCreated.increment(sunriseSunsetService.precomputeLocation(location, today, days, cacheTtl));
+            return true;
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Precomputation failed for location {}: {}", location.getId(), e.getMessage());
+            return false;
+        } finally {
+            locationsDone.incrementAndGet();
+        }
+    }
+
+    /**Stops the worker threads.*/
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
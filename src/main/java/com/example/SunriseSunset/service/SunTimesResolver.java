@@ -0,0 +1,194 @@
+package com.example.SunriseSunset.service;
+
+import com.example.SunriseSunset.client.SunApiClient;
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import com.example.SunriseSunset.exception.UpstreamUnavailableException;
+import com.example.SunriseSunset.solar.SolarCalculator;
+import com.example.SunriseSunset.solar.SunTimesMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+/**Resolves sunrise/sunset times from the configured source: local calculation, remote API, or both.*/
+@Service
+public class SunTimesResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(SunTimesResolver.class);
+
+    private static final int PRELOAD_CHUNK = 50;
+
+    private final SolarCalculator solarCalculator;
+    private final SunApiClient sunApiClient;
+    private final SunTimesLookup sunTimesLookup;
+    private final SunTimesMode mode;
+    private final Duration verificationTolerance;
+    private final boolean fallbackToLocal;
+    private final ThreadPoolExecutor verificationExecutor;
+    private final Map<String, CompletableFuture<SunriseSunsetModel>> inFlight = new ConcurrentHashMap<>();
+    private final Counter upstreamCalls;
+    private final Counter coalescedCalls;
+    private final Counter localFallbacks;
+    private final Counter verificationMismatches;
+
+    /**Constructs a SunTimesResolver for the configured mode.*/
+    public SunTimesResolver(SolarCalculator solarCalculator,
+                            SunApiClient sunApiClient,
+                            SunTimesLookup sunTimesLookup,
+                            @Value("${sun.times.mode:local}") SunTimesMode mode,
+                            @Value("${sun.times.verification-tolerance:PT2M}") Duration verificationTolerance,
+                            @Value("${sun.api.fallback-to-local:true}") boolean fallbackToLocal,
+                            MeterRegistry meterRegistry) {
+        this.solarCalculator = solarCalculator;
+        this.sunApiClient = sunApiClient;
+        this.sunTimesLookup = sunTimesLookup;
+        this.mode = mode;
+        this.verificationTolerance = verificationTolerance;
+        this.fallbackToLocal = fallbackToLocal;
+        // Verification is best-effort: when the queue is full further checks are simply dropped.
+        this.verificationExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), new ThreadPoolExecutor.DiscardPolicy());
+        this.upstreamCalls = meterRegistry.counter("sun.api.calls");
+        this.coalescedCalls = meterRegistry.counter("sun.api.calls.coalesced");
+        this.localFallbacks = meterRegistry.counter("sun.api.fallback.local");
+        this.verificationMismatches = meterRegistry.counter("sun.verification.mismatches");
+        meterRegistry.gauge("sun.api.calls.in.flight", inFlight, Map::size);
+    }
+
+    /**Returns sunrise and sunset data for the given coordinates and date (YYYY-MM-DD).*/
+    public SunriseSunsetModel resolve(double lat, double lng, String date) {
+        switch (mode) {
+            case REMOTE:
+                return resolveRemote(lat, lng, date);
+            case LOCAL_WITH_REMOTE_VERIFICATION:
+                SunriseSunsetModel local = solarCalculator.calculate(lat, lng, LocalDate.parse(date));
+                verificationExecutor.execute(() -> verify(lat, lng, date, local));
+                return local;
+            case LOCAL:
+            default:
+                return solarCalculator.calculate(lat, lng, LocalDate.parse(date));
+        }
+    }
+
+    /**Fetches missing days of the range from the remote API into the lookup table and returns how many were added.
+     * Days are stored in chunks as they arrive, so a failure keeps the days fetched before it.*/
+    public int preload(double lat, double lng, LocalDate startDate, LocalDate endDate) {
+        Set<LocalDate> stored = sunTimesLookup.findStoredDates(lat, lng, startDate, endDate);
+        List<LocalDate> dates = new ArrayList<>();
+        List<SunriseSunsetModel> models = new ArrayList<>();
+        int added = 0;
+        try {
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                if (!stored.contains(date)) {
+                    SunriseSunsetModel model = fetchRemote(lat, lng, date.toString());
+                    dates.add(date);
+                    models.add(model);
+                    if (dates.size() >= PRELOAD_CHUNK) {
+                        added += sunTimesLookup.storeAll(lat, lng, dates, models);
+                        dates.clear();
+                        models.clear();
+                    }
+                }
+            }
+        } finally {
+            added += sunTimesLookup.storeAll(lat, lng, dates, models);
+            logger.info("Preloaded {} lookup entries for lat={}, lng={}", added, lat, lng);
+        }
+        return added;
+    }
+
+    /**Returns the stored response for nearby coordinates, or fetches it remotely and stores it.
+     * When the upstream fails and fallback is enabled, the local calculation is returned and not stored.*/
+    private SunriseSunsetModel resolveRemote(double lat, double lng, String date) {
+        LocalDate localDate = LocalDate.parse(date);
+        Optional<SunriseSunsetModel> stored = sunTimesLookup.find(lat, lng, localDate);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        SunriseSunsetModel response;
+        try {
+            response = fetchRemote(lat, lng, date);
+        } catch (UpstreamUnavailableException | RestClientException e) {
+            if (!fallbackToLocal) {
+                throw e;
+            }
+            localFallbacks.increment();
+            logger.warn("Sun API failed for lat={}, lng={}, date={}, using local calculation: {}",
+                    lat, lng, date, e.getMessage());
+            return solarCalculator.calculate(lat, lng, localDate);
+        }
+        sunTimesLookup.store(lat, lng, localDate, response);
+        return response;
+    }
+
+    /**Fetches from the remote API, sharing one in-flight request between concurrent callers for the same key.*/
+    private SunriseSunsetModel fetchRemote(double lat, double lng, String date) {
+        String key = String.format(Locale.ROOT, "%f,%f,%s", lat, lng, date);
+        CompletableFuture<SunriseSunsetModel> call = new CompletableFuture<>();
+        CompletableFuture<SunriseSunsetModel> pending = inFlight.putIfAbsent(key, call);
+        if (pending != null) {
+            coalescedCalls.increment();
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            upstreamCalls.increment();
+            SunriseSunsetModel response = sunApiClient.fetch(lat, lng, date);
+            call.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**Compares a local result with the remote API, counting and logging deviations above the tolerance.*/
+    private void verify(double lat, double lng, String date, SunriseSunsetModel local) {
+        try {
+            SunriseSunsetModel remote = fetchRemote(lat, lng, date);
+            Duration sunriseDiff = difference(local.getResults().getSunrise(), remote.getResults().getSunrise());
+            Duration sunsetDiff = difference(local.getResults().getSunset(), remote.getResults().getSunset());
+            if (sunriseDiff.compareTo(verificationTolerance) > 0 || sunsetDiff.compareTo(verificationTolerance) > 0) {
+                verificationMismatches.increment();
+                logger.warn("Local sun times deviate from remote for lat={}, lng={}, date={}: sunrise {}, sunset {}",
+                        lat, lng, date, sunriseDiff, sunsetDiff);
+            }
+        } catch (Exception e) {
+            logger.warn("Remote verification failed for lat={}, lng={}, date={}: {}", lat, lng, date, e.getMessage());
+        }
+    }
+
+    private static Duration difference(String first, String second) {
+        return Duration.between(OffsetDateTime.parse(first), OffsetDateTime.parse(second)).abs();
+    }
+
+    /**Stops the background verification worker.*/
+    @PreDestroy
+    public void shutdown() {
+        verificationExecutor.shutdownNow();
+    }
+}
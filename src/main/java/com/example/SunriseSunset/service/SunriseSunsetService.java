@@ -1,23 +1,54 @@
 package com.example.SunriseSunset.service;
 
 import com.example.SunriseSunset.cache.Cache;
+import com.example.SunriseSunset.cache.CacheTag;
+import com.example.SunriseSunset.cache.InvalidationBus;
+import com.example.SunriseSunset.cache.RangeCache;
+import com.example.SunriseSunset.dto.BatchItemResult;
 import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.dto.SunTimesPreloadDto;
 import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import com.example.SunriseSunset.dto.SunriseSunsetPageDto;
+import com.example.SunriseSunset.exception.EntryConflictException;
+import com.example.SunriseSunset.geo.GeoGrid;
 import com.example.SunriseSunset.model.LocationEntity;
 import com.example.SunriseSunset.model.SunriseSunsetEntity;
 import com.example.SunriseSunset.repository.LocationRepository;
 import com.example.SunriseSunset.repository.SunriseSunsetRepository;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 
@@ -27,164 +58,554 @@ public class SunriseSunsetService {
 
     private static final Logger logger = LoggerFactory.getLogger(SunriseSunsetService.class);
 
-    private static final String SUN_API_URL = "https://api.sunrise-sunset.org/json";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_RADIUS_KM = 1000;
+    private static final int KEY_QUERY_CHUNK = 1000;
 
-    private final RestTemplate restTemplate;
+    private final SunTimesResolver sunTimesResolver;
     private final SunriseSunsetRepository sunriseSunsetRepository;
     private final LocationRepository locationRepository;
-    private final Cache sunriseSunsetCache;
+    private final Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache;
+    private final RangeCache rangeCache;
+    private final InvalidationBus invalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final EntityManager entityManager;
+    private final ExecutorService batchExecutor;
+    private final int batchMaxSize;
 
     /**Constructs a new SunriseSunsetService with the specified dependencies.*/
     @Autowired
-    public SunriseSunsetService(RestTemplate restTemplate,
+    public SunriseSunsetService(SunTimesResolver sunTimesResolver,
                                 SunriseSunsetRepository sunriseSunsetRepository,
                                 LocationRepository locationRepository,
-                                Cache sunriseSunsetCache) {
-        this.restTemplate = restTemplate;
+                                Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache,
+                                RangeCache rangeCache,
+                                InvalidationBus invalidationBus,
+                                TransactionTemplate transactionTemplate,
+                                EntityManager entityManager,
+                                ExecutorService sunBatchExecutor,
+                                @Value("${sun.batch.max-size:10000}") int batchMaxSize) {
+        this.sunTimesResolver = sunTimesResolver;
         this.sunriseSunsetRepository = sunriseSunsetRepository;
         this.locationRepository = locationRepository;
         this.sunriseSunsetCache = sunriseSunsetCache;
+        this.rangeCache = rangeCache;
+        this.invalidationBus = invalidationBus;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.batchExecutor = sunBatchExecutor;
+        this.batchMaxSize = batchMaxSize;
     }
 
-    /**Creates a new sunrise/sunset entry based on the provided DTO.*/
+    /**Creates a sunrise/sunset entry, or reuses the stored entry with the same rounded coordinates and date
+     * and only links the new locations to it.*/
     public SunriseSunsetDto createSunriseSunset(SunriseSunsetDto dto) {
-        if (dto.getLatitude() < -90 || dto.getLatitude() > 90) {
-            throw new IllegalArgumentException("Широта должна быть в диапазоне от -90 до 90");
-        }
-        if (dto.getLongitude() < -180 || dto.getLongitude() > 180) {
-            throw new IllegalArgumentException("Долгота должна быть в диапазоне от -180 до 180");
+        LocalDate date = validate(dto);
+        NaturalKey key = NaturalKey.of(dto.getLatitude(), dto.getLongitude(), date);
+        List<Integer> locationIds = dto.getLocationIds() != null ? dto.getLocationIds() : List.of();
+
+        Optional<SunriseSunsetDto> existing = mergeIntoExisting(key, locationIds);
+        if (existing.isPresent()) {
+            return existing.get();
         }
 
-        LocalDate date;
+        SunriseSunsetEntity entity = buildEntity(dto.getLatitude(), dto.getLongitude(), date);
+
+        SunriseSunsetEntity savedEntity;
         try {
-            date = LocalDate.parse(dto.getDate());
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Некорректный формат даты: " + dto.getDate());
+            // Locations are read in the write transaction, so ones created just before are not missed on a lagging replica.
+            savedEntity = transactionTemplate.execute(status -> {
+                if (!locationIds.isEmpty()) {
+                    entity.setLocations(locationRepository.findAllById(locationIds));
+                }
+                return sunriseSunsetRepository.save(entity);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored the same key since the lookup above.
+            return mergeIntoExisting(key, locationIds).orElseThrow(() -> e);
         }
+        evictCached(savedEntity.getLocations(), savedEntity.getDate());
+        return convertToDto(savedEntity);
+    }
 
-        SunriseSunsetModel sunData = getSunriseSunset(dto.getLatitude(), dto.getLongitude(), dto.getDate());
-        SunriseSunsetEntity entity = new SunriseSunsetEntity();
-        entity.setDate(date);
-        entity.setLatitude(dto.getLatitude());
-        entity.setLongitude(dto.getLongitude());
-        entity.setSunrise(OffsetDateTime.parse(sunData.getResults().getSunrise()));
-        entity.setSunset(OffsetDateTime.parse(sunData.getResults().getSunset()));
+    /**Links the locations to the stored entry with the key, if there is one, and returns it.*/
+    private Optional<SunriseSunsetDto> mergeIntoExisting(NaturalKey key, Collection<Integer> locationIds) {
+        List<LocationEntity> added = new ArrayList<>();
+        Optional<SunriseSunsetDto> merged = transactionTemplate.execute(status -> sunriseSunsetRepository
+                .findWithLocationsByLatKeyAndLngKeyAndDate(key.latKey(), key.lngKey(), key.date())
+                .map(entity -> {
+                    added.addAll(linkLocations(entity, locationIds, ids -> locationRepository.findAllById(ids)));
+                    return convertToDto(entity);
+                }));
+        evictCached(added, key.date());
+        return merged;
+    }
 
-        if (dto.getLocationIds() != null && !dto.getLocationIds().isEmpty()) {
-            List<LocationEntity> locations = locationRepository.findAllById(dto.getLocationIds());
-            entity.setLocations(locations);
+    /**Adds the locations not linked to the managed entity yet and returns them.*/
+    private static List<LocationEntity> linkLocations(SunriseSunsetEntity entity, Collection<Integer> locationIds,
+                                                      Function<List<Integer>, List<LocationEntity>> loader) {
+        Set<Integer> linked = entity.getLocations().stream()
+                .map(LocationEntity::getId)
+                .collect(Collectors.toSet());
+        List<Integer> missing = locationIds.stream()
+                .filter(id -> !linked.contains(id))
+                .distinct()
+                .toList();
+        if (missing.isEmpty()) {
+            return List.of();
         }
+        List<LocationEntity> added = loader.apply(missing);
+        entity.getLocations().addAll(added);
+        return added;
+    }
 
-        SunriseSunsetEntity savedEntity = sunriseSunsetRepository.save(entity);
-        return convertToDto(savedEntity);
+    /**Creates many entries at once: items with the key of a stored entry, or of an earlier item, only add location
+     * links to it; sun times of the new keys are resolved in parallel and the rows are inserted in one batch.*/
+    public List<BatchItemResult> createSunriseSunsets(List<SunriseSunsetDto> dtos) {
+        if (dtos.size() > batchMaxSize) {
+            throw new IllegalArgumentException("Размер пакета превышает допустимый: " + batchMaxSize);
+        }
+        BatchItemResult[] results = new BatchItemResult[dtos.size()];
+        Map<NaturalKey, List<Integer>> itemsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            SunriseSunsetDto dto = dtos.get(i);
+            try {
+                LocalDate date = validate(dto);
+                itemsByKey.computeIfAbsent(NaturalKey.of(dto.getLatitude(), dto.getLongitude(), date),
+                        key -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchItemResult.failed(i, e.getMessage());
+            }
+        }
+
+        Set<NaturalKey> storedKeys = readOnlyTransactionTemplate.execute(
+                status -> findByKeys(itemsByKey.keySet()).keySet());
+        Map<NaturalKey, CompletableFuture<SunriseSunsetEntity>> futures = new LinkedHashMap<>();
+        for (Map.Entry<NaturalKey, List<Integer>> item : itemsByKey.entrySet()) {
+            if (!storedKeys.contains(item.getKey())) {
+                SunriseSunsetDto dto = dtos.get(item.getValue().get(0));
+                LocalDate date = item.getKey().date();
+                futures.put(item.getKey(), CompletableFuture.supplyAsync(
+                        () -> buildEntity(dto.getLatitude(), dto.getLongitude(), date), batchExecutor));
+            }
+        }
+
+        Set<Integer> locationIds = dtos.stream()
+                .filter(dto -> dto.getLocationIds() != null)
+                .flatMap(dto -> dto.getLocationIds().stream())
+                .collect(Collectors.toSet());
+
+        Map<NaturalKey, SunriseSunsetEntity> built = new HashMap<>();
+        for (Map.Entry<NaturalKey, CompletableFuture<SunriseSunsetEntity>> future : futures.entrySet()) {
+            try {
+                built.put(future.getKey(), future.getValue().join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                for (int i : itemsByKey.remove(future.getKey())) {
+                    results[i] = BatchItemResult.failed(i, cause.getMessage());
+                }
+            }
+        }
+
+        Map<NaturalKey, StoredEntry> entries;
+        try {
+            entries = storeBatch(itemsByKey, built, dtos, locationIds);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request inserted some of the keys; the retry links to those entries instead.
+            entries = storeBatch(itemsByKey, built, dtos, locationIds);
+        }
+
+        int created = 0;
+        for (Map.Entry<NaturalKey, List<Integer>> item : itemsByKey.entrySet()) {
+            StoredEntry stored = entries.get(item.getKey());
+            List<Integer> items = item.getValue();
+            for (int j = 0; j < items.size(); j++) {
+                int i = items.get(j);
+                if (stored == null) {
+                    results[i] = BatchItemResult.failed(i, "Запись была удалена во время создания, повторите запрос");
+                } else if (j == 0 && stored.created()) {
+                    results[i] = BatchItemResult.created(i, stored.entry());
+                    created++;
+                } else {
+                    results[i] = BatchItemResult.existing(i, stored.entry());
+                }
+            }
+            if (stored != null) {
+                evictCached(stored.linked(), item.getKey().date());
+            }
+        }
+        logger.info("Batch created {} of {} entries", created, dtos.size());
+        return Arrays.asList(results);
+    }
+
+    /**Inserts the built entries and links the locations of the items to new and stored entries in one transaction.*/
+    private Map<NaturalKey, StoredEntry> storeBatch(Map<NaturalKey, List<Integer>> itemsByKey,
+                                                    Map<NaturalKey, SunriseSunsetEntity> built,
+                                                    List<SunriseSunsetDto> dtos,
+                                                    Set<Integer> locationIds) {
+        return transactionTemplate.execute(status -> {
+            Map<Integer, LocationEntity> locations = locationRepository.findAllById(locationIds).stream()
+                    .collect(Collectors.toMap(LocationEntity::getId, Function.identity()));
+            Map<NaturalKey, SunriseSunsetEntity> existing = findByKeys(itemsByKey.keySet());
+            Map<NaturalKey, SunriseSunsetEntity> entities = new LinkedHashMap<>();
+            Map<NaturalKey, List<LocationEntity>> linked = new HashMap<>();
+            List<SunriseSunsetEntity> inserts = new ArrayList<>();
+            for (Map.Entry<NaturalKey, List<Integer>> item : itemsByKey.entrySet()) {
+                Set<Integer> itemLocationIds = new LinkedHashSet<>();
+                for (int i : item.getValue()) {
+                    if (dtos.get(i).getLocationIds() != null) {
+                        itemLocationIds.addAll(dtos.get(i).getLocationIds());
+                    }
+                }
+                SunriseSunsetEntity entity = existing.get(item.getKey());
+                if (entity == null) {
+                    entity = built.get(item.getKey());
+                    if (entity == null) {
+                        // Stored when checked before resolving, but deleted since; reported as failed.
+                        continue;
+                    }
+                    // Cleared in case an earlier attempt assigned an id before its transaction rolled back.
+                    entity.setId(null);
+                    entity.setLocations(new ArrayList<>());
+                    inserts.add(entity);
+                }
+                linked.put(item.getKey(), linkLocations(entity, itemLocationIds, ids -> ids.stream()
+                        .map(locations::get)
+                        .filter(Objects::nonNull)
+                        .toList()));
+                entities.put(item.getKey(), entity);
+            }
+            sunriseSunsetRepository.saveAll(inserts);
+            Map<NaturalKey, StoredEntry> stored = new LinkedHashMap<>();
+            for (Map.Entry<NaturalKey, SunriseSunsetEntity> entity : entities.entrySet()) {
+                stored.put(entity.getKey(), new StoredEntry(convertToDto(entity.getValue()),
+                        !existing.containsKey(entity.getKey()), linked.get(entity.getKey())));
+            }
+            return stored;
+        });
+    }
+
+    /**Loads the entries with the given keys, fetching their locations; must run inside a transaction.*/
+    private Map<NaturalKey, SunriseSunsetEntity> findByKeys(Collection<NaturalKey> keys) {
+        Map<NaturalKey, SunriseSunsetEntity> found = new HashMap<>();
+        List<NaturalKey> remaining = new ArrayList<>(keys);
+        // Chunked so the three IN lists stay well below the bind parameter limit of the driver.
+        for (int from = 0; from < remaining.size(); from += KEY_QUERY_CHUNK) {
+            List<NaturalKey> chunk = remaining.subList(from, Math.min(from + KEY_QUERY_CHUNK, remaining.size()));
+            Set<NaturalKey> wanted = new HashSet<>(chunk);
+            List<SunriseSunsetEntity> candidates = sunriseSunsetRepository.findWithLocationsByKeyParts(
+                    chunk.stream().map(NaturalKey::date).collect(Collectors.toSet()),
+                    chunk.stream().map(NaturalKey::latKey).collect(Collectors.toSet()),
+                    chunk.stream().map(NaturalKey::lngKey).collect(Collectors.toSet()));
+            for (SunriseSunsetEntity candidate : candidates) {
+                NaturalKey key = NaturalKey.of(candidate);
+                if (wanted.contains(key)) {
+                    found.put(key, candidate);
+                }
+            }
+        }
+        return found;
     }
 
     /**Retrieves a sunrise/sunset entry by its ID.*/
     public SunriseSunsetDto getSunriseSunsetById(Integer id) {
-        Optional<SunriseSunsetEntity> entity = sunriseSunsetRepository.findById(id);
-        return entity.map(this::convertToDto).orElse(null);
+        return readOnlyTransactionTemplate.execute(status -> sunriseSunsetRepository.findWithLocationsById(id)
+                .map(SunriseSunsetService::convertToDto)
+                .orElse(null));
     }
 
     /**Retrieves all sunrise/sunset entries.*/
     public List<SunriseSunsetDto> getAllSunriseSunsets() {
-        return sunriseSunsetRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return readOnlyTransactionTemplate.execute(status -> sunriseSunsetRepository.findAllWithLocations().stream()
+                .map(SunriseSunsetService::convertToDto)
+                .collect(Collectors.toList()));
     }
 
-    /**Updates an existing sunrise/sunset entry.*/
-    public SunriseSunsetDto updateSunriseSunset(Integer id, SunriseSunsetDto dto) {
-        Optional<SunriseSunsetEntity> existing = sunriseSunsetRepository.findById(id);
-        if (existing.isPresent()) {
-            if (dto.getLatitude() < -90 || dto.getLatitude() > 90) {
-                throw new IllegalArgumentException("Широта должна быть в диапазоне от -90 до 90");
-            }
-            if (dto.getLongitude() < -180 || dto.getLongitude() > 180) {
-                throw new IllegalArgumentException("Долгота должна быть в диапазоне от -180 до 180");
-            }
+    /**Retrieves up to size entries with ids greater than the cursor, ordered by id. Sizes above MAX_PAGE_SIZE are
+     * capped; the next cursor is null on the last page.*/
+    public SunriseSunsetPageDto getSunriseSunsetPage(Integer cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть не меньше 1");
+        }
+        int limit = Math.min(size, MAX_PAGE_SIZE);
+        // One entry more than the page tells whether another page follows.
+        List<SunriseSunsetDto> items = readOnlyTransactionTemplate.execute(status -> sunriseSunsetRepository
+                .findByIdGreaterThanOrderByIdAsc(cursor != null ? cursor : 0, Limit.of(limit + 1)).stream()
+                .map(SunriseSunsetService::convertToDto)
+                .collect(Collectors.toList()));
+        if (items.size() <= limit) {
+            return new SunriseSunsetPageDto(items, null);
+        }
+        List<SunriseSunsetDto> page = new ArrayList<>(items.subList(0, limit));
+        return new SunriseSunsetPageDto(page, page.get(limit - 1).getId());
+    }
 
-            LocalDate date;
-            try {
-                date = LocalDate.parse(dto.getDate());
-            } catch (DateTimeParseException e) {
-                throw new IllegalArgumentException("Некорректный формат даты: " + dto.getDate());
-            }
-
-            SunriseSunsetEntity entity = existing.get();
-            entity.setDate(date);
-            entity.setLatitude(dto.getLatitude());
-            entity.setLongitude(dto.getLongitude());
-            SunriseSunsetModel sunData = getSunriseSunset(dto.getLatitude(), dto.getLongitude(), dto.getDate());
-            entity.setSunrise(OffsetDateTime.parse(sunData.getResults().getSunrise()));
-            entity.setSunset(OffsetDateTime.parse(sunData.getResults().getSunset()));
-
-            if (dto.getLocationIds() != null && !dto.getLocationIds().isEmpty()) {
-                List<LocationEntity> locations = locationRepository.findAllById(dto.getLocationIds());
-                entity.setLocations(locations);
-            } else {
-                entity.setLocations(new java.util.ArrayList<>());
+    /**Passes every entry in id order to the consumer, reading from a database cursor so memory use stays flat.*/
+    public void streamAllSunriseSunsets(Consumer<SunriseSunsetDto> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<SunriseSunsetEntity> entities = sunriseSunsetRepository.streamAllOrderById()) {
+                entities.forEach(entity -> {
+                    consumer.accept(convertToDto(entity));
+                    entityManager.detach(entity);
+                });
             }
+        });
+    }
 
-            SunriseSunsetEntity updatedEntity = sunriseSunsetRepository.save(entity);
-            return convertToDto(updatedEntity);
+    /**Updates an existing sunrise/sunset entry, or returns null if there is none with the id. Sun times are resolved
+     * only for an existing entry, before it is read again and written in one transaction.*/
+    public SunriseSunsetDto updateSunriseSunset(Integer id, SunriseSunsetDto dto) {
+        if (!sunriseSunsetRepository.existsById(id)) {
+            return null;
         }
-        return null;
+        LocalDate date = validate(dto);
+        SunriseSunsetModel sunData = getSunriseSunset(dto.getLatitude(), dto.getLongitude(), dto.getDate());
+        List<Integer> locationIds = dto.getLocationIds() != null ? dto.getLocationIds() : List.of();
+
+        List<LocationEntity> previousLocations = new ArrayList<>();
+        LocalDate[] previousDate = new LocalDate[1];
+        SunriseSunsetEntity updatedEntity;
+        try {
+            updatedEntity = transactionTemplate.execute(status -> sunriseSunsetRepository.findWithLocationsById(id)
+                    .map(entity -> {
+                        previousLocations.addAll(entity.getLocations());
+                        previousDate[0] = entity.getDate();
+                        entity.setDate(date);
+                        entity.setLatitude(dto.getLatitude());
+                        entity.setLongitude(dto.getLongitude());
+                        entity.setSunrise(OffsetDateTime.parse(sunData.getResults().getSunrise()));
+                        entity.setSunset(OffsetDateTime.parse(sunData.getResults().getSunset()));
+                        entity.setLocations(locationIds.isEmpty()
+                                ? new ArrayList<>() : locationRepository.findAllById(locationIds));
+                        return sunriseSunsetRepository.save(entity);
+                    })
+                    .orElse(null));
+        } catch (DataIntegrityViolationException e) {
+            throw new EntryConflictException("Запись с такими координатами и датой уже существует");
+        }
+        if (updatedEntity == null) {
+            return null;
+        }
+        evictCached(previousLocations, previousDate[0]);
+        evictCached(updatedEntity.getLocations(), updatedEntity.getDate());
+        return convertToDto(updatedEntity);
     }
 
     /**Deletes a sunrise/sunset entry by its ID.*/
     public void deleteSunriseSunset(Integer id) {
-        sunriseSunsetRepository.deleteById(id);
+        List<LocationEntity> locations = new ArrayList<>();
+        LocalDate date = transactionTemplate.execute(status -> sunriseSunsetRepository.findWithLocationsById(id)
+                .map(entity -> {
+                    locations.addAll(entity.getLocations());
+                    sunriseSunsetRepository.delete(entity);
+                    return entity.getDate();
+                })
+                .orElse(null));
+        if (date != null) {
+            evictCached(locations, date);
+        }
     }
 
     /**Retrieves sunrise/sunset entries by location name and date, using cache if available.*/
     public List<SunriseSunsetDto> getSunriseSunsetByLocationAndDate(String locationName, LocalDate date) {
-        String cacheKey = "sun_" + locationName + "_" + date.toString();
-        if (sunriseSunsetCache.containsKey(cacheKey)) {
-            logger.info("Returning data from cache for key: {}", cacheKey);
-            @SuppressWarnings("unchecked")
-            List<SunriseSunsetDto> cachedData = (List<SunriseSunsetDto>) sunriseSunsetCache.get(cacheKey);
-            return cachedData;
-        }
+        return sunriseSunsetCache.getOrCompute(sunCacheKey(locationName, date), List.of(CacheTag.of(locationName, date)),
+                key -> findByLocationAndDate(locationName, date));
+    }
 
-        List<SunriseSunsetEntity> entities = sunriseSunsetRepository.findByLocationsNameAndDate(locationName, date);
-        List<SunriseSunsetDto> dtos = entities.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        sunriseSunsetCache.put(cacheKey, dtos);
-        logger.info("Saved data to cache for key: {}", cacheKey);
-        return dtos;
+    /**Retrieves entries on the date within radiusKm of the point, nearest first, using the grid-cell index.*/
+    public List<SunriseSunsetDto> getSunriseSunsetsNear(double lat, double lng, double radiusKm, LocalDate date) {
+        if (lat < -90 || lat > 90) {
+            throw new IllegalArgumentException("Широта должна быть в диапазоне от -90 до 90");
+        }
+        if (lng < -180 || lng > 180) {
+            throw new IllegalArgumentException("Долгота должна быть в диапазоне от -180 до 180");
+        }
+        if (!(radiusKm > 0) || radiusKm > MAX_RADIUS_KM) {
+            throw new IllegalArgumentException("Радиус должен быть больше 0 и не больше " + MAX_RADIUS_KM + " км");
+        }
+        List<Integer> cells = GeoGrid.cellsWithin(lat, lng, radiusKm);
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<SunriseSunsetEntity> candidates;
+            if (cells != null) {
+                candidates = sunriseSunsetRepository.findWithLocationsByGridCellInAndDate(cells, date);
+            } else {
+                double[] box = GeoGrid.boundingBox(lat, lng, radiusKm);
+                candidates = sunriseSunsetRepository.findWithLocationsByDateAndLatitudeBetween(date, box[0], box[1]);
+            }
+            return candidates.stream()
+                    .filter(entity -> GeoGrid.distanceKm(lat, lng, entity.getLatitude(), entity.getLongitude()) <= radiusKm)
+                    .sorted(Comparator.comparingDouble(
+                            entity -> GeoGrid.distanceKm(lat, lng, entity.getLatitude(), entity.getLongitude())))
+                    .map(SunriseSunsetService::convertToDto)
+                    .collect(Collectors.toList());
+        });
     }
 
-    /**Retrieves sunrise/sunset entries by location name and date range, using cache if available.*/
+    /**Retrieves sunrise/sunset entries by location name and date range, loading only the days not cached yet.*/
     public List<SunriseSunsetDto> getSunriseSunsetByLocationAndDateRange(String locationName,
                                                                          LocalDate startDate,
                                                                          LocalDate endDate) {
-        String cacheKey = "sun_" + locationName + "_" + startDate.toString() + "_" + endDate.toString();
-        if (sunriseSunsetCache.containsKey(cacheKey)) {
-            logger.info("Returning data from cache for key: {}", cacheKey);
-            @SuppressWarnings("unchecked")
-            List<SunriseSunsetDto> cachedData = (List<SunriseSunsetDto>) sunriseSunsetCache.get(cacheKey);
-            return cachedData;
-        }
-
-        List<SunriseSunsetEntity> entities = sunriseSunsetRepository.findByLocationsNameAndDateBetween(
-                locationName, startDate, endDate);
-        List<SunriseSunsetDto> dtos = entities.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        sunriseSunsetCache.put(cacheKey, dtos);
-        logger.info("Saved data to cache for key: {}", cacheKey);
-        return dtos;
+        RangeCache.Timeline timeline = rangeCache.timeline(locationName);
+        long version = timeline.version();
+        for (LocalDate[] gap : timeline.gaps(startDate, endDate)) {
+            logger.info("Loading range {}..{} of location {} into cache", gap[0], gap[1], locationName);
+            List<SunriseSunsetDto> dtos = findByLocationAndDateRange(locationName, gap[0], gap[1]);
+            if (!timeline.merge(version, gap[0], gap[1], dtos)) {
+                // Data of this location changed while loading; answer from the database without caching.
+                return findByLocationAndDateRange(locationName, startDate, endDate);
+            }
+        }
+        return timeline.slice(startDate, endDate);
+    }
+
+    private List<SunriseSunsetDto> findByLocationAndDate(String locationName, LocalDate date) {
+        logger.info("Loading data into cache for location {} and date {}", locationName, date);
+        return readOnlyTransactionTemplate.execute(status -> sunriseSunsetRepository
+                .findWithLocationsByLocationNameAndDate(locationName, date).stream()
+                .map(SunriseSunsetService::convertToDto)
+                .collect(Collectors.toList()));
+    }
+
+    private List<SunriseSunsetDto> findByLocationAndDateRange(String locationName, LocalDate startDate, LocalDate endDate) {
+        return readOnlyTransactionTemplate.execute(status -> sunriseSunsetRepository
+                .findWithLocationsByLocationNameAndDateBetween(locationName, startDate, endDate).stream()
+                .map(SunriseSunsetService::convertToDto)
+                .collect(Collectors.toList()));
+    }
+
+    /**Preloads upstream sun times for the given coordinates and date ranges and returns how many entries were added.*/
+    public int preloadLookup(List<SunTimesPreloadDto> requests) {
+        int loaded = 0;
+        for (SunTimesPreloadDto request : requests) {
+            if (request.getLatitude() < -90 || request.getLatitude() > 90) {
+                throw new IllegalArgumentException("Широта должна быть в диапазоне от -90 до 90");
+            }
+            if (request.getLongitude() < -180 || request.getLongitude() > 180) {
+                throw new IllegalArgumentException("Долгота должна быть в диапазоне от -180 до 180");
+            }
+            LocalDate start;
+            LocalDate end;
+            try {
+                start = LocalDate.parse(request.getStartDate());
+                end = LocalDate.parse(request.getEndDate());
+            } catch (DateTimeParseException | NullPointerException e) {
+                throw new IllegalArgumentException("Некорректный формат даты: " + request.getStartDate()
+                        + " или " + request.getEndDate());
+            }
+            if (start.isAfter(end)) {
+                throw new IllegalArgumentException("Start date must be before end date");
+            }
+            if (ChronoUnit.DAYS.between(start, end) >= batchMaxSize) {
+                throw new IllegalArgumentException("Размер пакета превышает допустимый: " + batchMaxSize);
+            }
+            loaded += sunTimesResolver.preload(request.getLatitude(), request.getLongitude(), start, end);
+        }
+        return loaded;
+    }
+
+    /**Creates the missing entries of a location for the given days and loads them into the caches for cacheTtl.
+     * Coordinates are taken from the latest entry of the location; returns the number of entries created.*/
+    public int precomputeLocation(LocationEntity location, LocalDate startDate, int days, Duration cacheTtl) {
+        Optional<SunriseSunsetEntity> latest = sunriseSunsetRepository.findFirstByLocationsIdOrderByDateDesc(location.getId());
+        if (latest.isEmpty()) {
+            return 0;
+        }
+        double latitude = latest.get().getLatitude();
+        double longitude = latest.get().getLongitude();
+        LocalDate endDate = startDate.plusDays(days - 1L);
+        Set<LocalDate> existing = new HashSet<>(
+                sunriseSunsetRepository.findDatesByLocationIdAndDateBetween(location.getId(), startDate, endDate));
+
+        List<SunriseSunsetDto> missing = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (!existing.contains(date)) {
+                missing.add(new SunriseSunsetDto(null, date.toString(), latitude, longitude, null, null,
+                        List.of(location.getId())));
+            }
+        }
+        // Goes through the upsert, so days already stored for the same coordinates by another location are linked.
+        int created = 0;
+        String error = null;
+        for (BatchItemResult result : createSunriseSunsets(missing)) {
+            if (result.getStatus() == BatchItemResult.Status.CREATED) {
+                created++;
+            } else if (result.getStatus() == BatchItemResult.Status.FAILED) {
+                error = result.getError();
+            }
+        }
+        if (error != null) {
+            throw new IllegalStateException("Не удалось создать записи локации " + location.getId() + ": " + error);
+        }
+
+        String name = location.getName();
+        if (name != null) {
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                LocalDate day = date;
+                // Reloaded so that the entry lives for cacheTtl even if it was already cached for less.
+                sunriseSunsetCache.invalidate(sunCacheKey(name, day));
+                sunriseSunsetCache.getOrCompute(sunCacheKey(name, day), cacheTtl, List.of(CacheTag.of(name, day)),
+                        key -> findByLocationAndDate(name, day));
+            }
+            rangeCache.pin(name, cacheTtl);
+            getSunriseSunsetByLocationAndDateRange(name, startDate, endDate);
+        }
+        return created;
     }
 
     /**Clears the cache of sunrise/sunset data.*/
     public void clearCache() {
-        sunriseSunsetCache.clear();
+        invalidationBus.clear();
         logger.info("Cache cleared");
     }
 
+    /**Evicts cached results of the given locations whose date span covers the changed date, here and on peers.*/
+    private void evictCached(List<LocationEntity> locations, LocalDate date) {
+        for (LocationEntity location : locations) {
+            if (location.getName() == null) {
+                continue;
+            }
+            int removed = invalidationBus.invalidate(location.getName(), date);
+            if (removed > 0) {
+                logger.info("Evicted {} cache entries for location {} and date {}", removed, location.getName(), date);
+            }
+        }
+    }
+
+    /**Validates coordinates and date of the DTO and returns the parsed date.*/
+    private LocalDate validate(SunriseSunsetDto dto) {
+        if (dto.getLatitude() < -90 || dto.getLatitude() > 90) {
+            throw new IllegalArgumentException("Широта должна быть в диапазоне от -90 до 90");
+        }
+        if (dto.getLongitude() < -180 || dto.getLongitude() > 180) {
+            throw new IllegalArgumentException("Долгота должна быть в диапазоне от -180 до 180");
+        }
+        if (dto.getDate() == null) {
+            throw new IllegalArgumentException("Дата не должна быть пустой");
+        }
+        try {
+            return LocalDate.parse(dto.getDate());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный формат даты: " + dto.getDate());
+        }
+    }
+
+    /**Builds a new entity with resolved sun times, without locations.*/
+    private SunriseSunsetEntity buildEntity(double latitude, double longitude, LocalDate date) {
+        SunriseSunsetModel sunData = getSunriseSunset(latitude, longitude, date.toString());
+        SunriseSunsetEntity entity = new SunriseSunsetEntity();
+        entity.setDate(date);
+        entity.setLatitude(latitude);
+        entity.setLongitude(longitude);
+        entity.setSunrise(OffsetDateTime.parse(sunData.getResults().getSunrise()));
+        entity.setSunset(OffsetDateTime.parse(sunData.getResults().getSunset()));
+        return entity;
+    }
+
     /**Converts a SunriseSunsetEntity to a SunriseSunsetDto.*/
-    private SunriseSunsetDto convertToDto(SunriseSunsetEntity entity) {
+    static SunriseSunsetDto convertToDto(SunriseSunsetEntity entity) {
         List<Integer> locationIds = entity.getLocations().stream()
                 .map(LocationEntity::getId)
                 .collect(Collectors.toList());
@@ -194,13 +615,29 @@ public class SunriseSunsetService {
         );
     }
 
-    /**Fetches sunrise and sunset data from an external API.*/
+    /**Returns the cache key of the entries of a location on a date.*/
+    static String sunCacheKey(String locationName, LocalDate date) {
+        return "sun_" + locationName + "_" + date;
+    }
+
+    /**Resolves sunrise and sunset data from the configured source.*/
     private SunriseSunsetModel getSunriseSunset(double lat, double lng, String date) {
-        String url = String.format("%s?lat=%f&lng=%f&date=%s&formatted=0", SUN_API_URL, lat, lng, date);
-        SunriseSunsetModel response = restTemplate.getForObject(url, SunriseSunsetModel.class);
-        if (response == null || response.getResults() == null) {
-            throw new RuntimeException("Некорректный ответ от API sunrise-sunset");
+        return sunTimesResolver.resolve(lat, lng, date);
+    }
+
+    /**Natural key of an entry: its coordinates in GeoGrid key steps and its date.*/
+    private record NaturalKey(int latKey, int lngKey, LocalDate date) {
+
+        static NaturalKey of(double latitude, double longitude, LocalDate date) {
+            return new NaturalKey(GeoGrid.keyOf(latitude), GeoGrid.keyOf(longitude), date);
         }
-        return response;
+
+        static NaturalKey of(SunriseSunsetEntity entity) {
+            return of(entity.getLatitude(), entity.getLongitude(), entity.getDate());
+        }
+    }
+
+    /**Entry stored for a key by a batch, whether it was inserted, and the locations the batch linked to it.*/
+    private record StoredEntry(SunriseSunsetDto entry, boolean created, List<LocationEntity> linked) {
     }
-}
\ No newline at end of file
+}
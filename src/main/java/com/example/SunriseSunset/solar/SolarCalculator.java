@@ -0,0 +1,106 @@
+package com.example.SunriseSunset.solar;
+
+import com.example.SunriseSunset.dto.Results;
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.springframework.stereotype.Component;
+
+/**In-process sunrise/sunset calculator based on the NOAA solar position equations.*/
+@Component
+public class SolarCalculator {
+
+    /**Value returned by api.sunrise-sunset.org for both times when the sun never rises or never sets.*/
+    public static final String POLAR_TIME = "1970-01-01T00:00:01Z";
+
+    private static final double JULIAN_UNIX_EPOCH = 2440587.5;
+    private static final double JULIAN_J2000 = 2451545.0;
+    private static final double DAYS_PER_CENTURY = 36525.0;
+    private static final double MINUTES_PER_DAY = 1440.0;
+    /**Zenith of the sun's upper limb at sunrise/sunset, including atmospheric refraction.*/
+    private static final double SUNRISE_ZENITH = 90.833;
+
+    /**Computes sunrise and sunset in UTC for the given coordinates and date.*/
+    public SunriseSunsetModel calculate(double lat, double lng, LocalDate date) {
+        double dayStart = date.toEpochDay() + JULIAN_UNIX_EPOCH;
+        double noonEstimate = MINUTES_PER_DAY / 2 - 4 * lng;
+
+        Double sunrise = eventMinutes(lat, lng, dayStart, noonEstimate, true);
+        Double sunset = eventMinutes(lat, lng, dayStart, noonEstimate, false);
+
+        Results results;
+        if (sunrise == null || sunset == null) {
+            results = new Results(POLAR_TIME, POLAR_TIME);
+        } else {
+            results = new Results(format(date, sunrise), format(date, sunset));
+        }
+        SunriseSunsetModel model = new SunriseSunsetModel();
+        model.setResults(results);
+        model.setStatus("OK");
+        return model;
+    }
+
+    /**Returns minutes after UTC midnight of the event, refined once at the event time, or null for polar day/night.*/
+    private Double eventMinutes(double lat, double lng, double dayStart, double estimate, boolean rising) {
+        Double minutes = eventMinutesAt(lat, lng, dayStart + estimate / MINUTES_PER_DAY, rising);
+        if (minutes == null) {
+            return null;
+        }
+        Double refined = eventMinutesAt(lat, lng, dayStart + minutes / MINUTES_PER_DAY, rising);
+        return refined != null ? refined : minutes;
+    }
+
+    private Double eventMinutesAt(double lat, double lng, double julianDay, boolean rising) {
+        double t = (julianDay - JULIAN_J2000) / DAYS_PER_CENTURY;
+
+        double meanLongitude = normalizeDegrees(280.46646 + t * (36000.76983 + t * 0.0003032));
+        double meanAnomaly = 357.52911 + t * (35999.05029 - 0.0001537 * t);
+        double eccentricity = 0.016708634 - t * (0.000042037 + 0.0000001267 * t);
+        double center = sin(meanAnomaly) * (1.914602 - t * (0.004817 + 0.000014 * t))
+                + sin(2 * meanAnomaly) * (0.019993 - 0.000101 * t)
+                + sin(3 * meanAnomaly) * 0.000289;
+        double omega = 125.04 - 1934.136 * t;
+        double apparentLongitude = meanLongitude + center - 0.00569 - 0.00478 * sin(omega);
+        double meanObliquity = 23 + (26 + (21.448 - t * (46.815 + t * (0.00059 - t * 0.001813))) / 60) / 60;
+        double obliquity = meanObliquity + 0.00256 * cos(omega);
+        double declination = Math.toDegrees(Math.asin(sin(obliquity) * sin(apparentLongitude)));
+
+        double y = Math.pow(Math.tan(Math.toRadians(obliquity / 2)), 2);
+        double equationOfTime = 4 * Math.toDegrees(
+                y * sin(2 * meanLongitude)
+                - 2 * eccentricity * sin(meanAnomaly)
+                + 4 * eccentricity * y * sin(meanAnomaly) * cos(2 * meanLongitude)
+                - 0.5 * y * y * sin(4 * meanLongitude)
+                - 1.25 * eccentricity * eccentricity * sin(2 * meanAnomaly));
+
+        double cosHourAngle = cos(SUNRISE_ZENITH) / (cos(lat) * cos(declination))
+                - Math.tan(Math.toRadians(lat)) * Math.tan(Math.toRadians(declination));
+        if (cosHourAngle > 1 || cosHourAngle < -1) {
+            return null;
+        }
+        double hourAngle = Math.toDegrees(Math.acos(cosHourAngle));
+        double solarNoon = MINUTES_PER_DAY / 2 - 4 * lng - equationOfTime;
+        return rising ? solarNoon - 4 * hourAngle : solarNoon + 4 * hourAngle;
+    }
+
+    private static String format(LocalDate date, double minutes) {
+        long seconds = Math.round(minutes * 60);
+        Instant instant = date.atStartOfDay(ZoneOffset.UTC).toInstant().plusSeconds(seconds);
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC).toString();
+    }
+
+    private static double normalizeDegrees(double degrees) {
+        double normalized = degrees % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+
+    private static double sin(double degrees) {
+        return Math.sin(Math.toRadians(degrees));
+    }
+
+    private static double cos(double degrees) {
+        return Math.cos(Math.toRadians(degrees));
+    }
+}
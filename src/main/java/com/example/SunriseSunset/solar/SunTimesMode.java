@@ -0,0 +1,11 @@
+package com.example.SunriseSunset.solar;
+
+/**Source of sunrise/sunset times used when entries are created or updated.*/
+public enum SunTimesMode {
+    /**Computes times in-process with {@link SolarCalculator}.*/
+    LOCAL,
+    /**Fetches times from api.sunrise-sunset.org.*/
+    REMOTE,
+    /**Computes times in-process and compares them with the remote API in the background.*/
+    LOCAL_WITH_REMOTE_VERIFICATION
+}
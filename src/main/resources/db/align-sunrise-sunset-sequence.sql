@@ -0,0 +1,7 @@
+-- Moves sunrise_sunset_entity_seq past the ids already stored, run at every startup (Postgres only).
+-- Entries stored before the entity used a sequence have ids the new sequence would hand out again. Hibernate
+-- reserves the 50 ids up to each value it takes, so the sequence must be at least max(id); it is never moved
+-- back, since other instances may hold ids reserved below its current value.
+SELECT setval('sunrise_sunset_entity_seq', m.max_id)
+FROM (SELECT max(id) AS max_id FROM sunrise_sunset_entity) m
+WHERE m.max_id >= (SELECT last_value FROM sunrise_sunset_entity_seq);
@@ -0,0 +1,55 @@
+-- One-time conversion of sunrise_sunset_entity into a table partitioned by month of date (Postgres 12+).
+-- Run with the application stopped, then set sun.partitioning.enabled=true so that PartitionMaintenanceJob
+-- creates the partitions of the coming months and archives expired ones.
+--
+-- The primary key becomes (id, date), since every unique key of a partitioned table must contain the
+-- partition key. For the same reason sunrise_sunset_location can no longer reference entries with a
+-- foreign key; the application removes links itself before deleting entries.
+BEGIN;
+
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conname FROM pg_constraint
+              WHERE conrelid = 'sunrise_sunset_location'::regclass
+                AND confrelid = 'sunrise_sunset_entity'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE sunrise_sunset_location DROP CONSTRAINT %I', fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE sunrise_sunset_entity RENAME TO sunrise_sunset_entity_unpartitioned;
+ALTER TABLE sunrise_sunset_entity_unpartitioned DROP CONSTRAINT IF EXISTS uk_sunrise_sunset_lat_lng_date;
+ALTER TABLE sunrise_sunset_entity_unpartitioned DROP CONSTRAINT IF EXISTS sunrise_sunset_entity_pkey;
+DROP INDEX IF EXISTS idx_sunrise_sunset_grid_cell_date;
+
+CREATE TABLE sunrise_sunset_entity (LIKE sunrise_sunset_entity_unpartitioned INCLUDING DEFAULTS)
+    PARTITION BY RANGE (date);
+ALTER TABLE sunrise_sunset_entity ADD PRIMARY KEY (id, date);
+ALTER TABLE sunrise_sunset_entity ADD CONSTRAINT uk_sunrise_sunset_lat_lng_date UNIQUE (lat_key, lng_key, date);
+CREATE INDEX idx_sunrise_sunset_grid_cell_date ON sunrise_sunset_entity (grid_cell, date);
+
+-- Catches dates outside the monthly partitions; the job moves such rows when it creates their month.
+CREATE TABLE sunrise_sunset_entity_default PARTITION OF sunrise_sunset_entity DEFAULT;
+
+DO $$
+DECLARE
+    month date;
+BEGIN
+    FOR month IN SELECT generate_series(date_trunc('month', min(date)), date_trunc('month', max(date)),
+                                        interval '1 month')::date
+                 FROM sunrise_sunset_entity_unpartitioned
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF sunrise_sunset_entity FOR VALUES FROM (%L) TO (%L)',
+                       'sunrise_sunset_entity_p' || to_char(month, 'YYYYMM'), month,
+                       (month + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO sunrise_sunset_entity SELECT * FROM sunrise_sunset_entity_unpartitioned;
+DROP TABLE sunrise_sunset_entity_unpartitioned;
+
+COMMIT;
+
+ANALYZE sunrise_sunset_entity;
@@ -0,0 +1,47 @@
+package com.example.SunriseSunset;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.model.LocationEntity;
+import com.example.SunriseSunset.repository.LocationRepository;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**Test data shared by the Spring context tests; import it with @Import(SunTimesFixtures.class).*/
+@TestComponent
+public class SunTimesFixtures {
+
+    private final LocationRepository locationRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**Constructs the fixtures over the context's repository and database.*/
+    public SunTimesFixtures(LocationRepository locationRepository, JdbcTemplate jdbcTemplate) {
+        this.locationRepository = locationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**Stores a location with the name and returns its id.*/
+    public int location(String name) {
+        LocationEntity location = new LocationEntity();
+        location.setName(name);
+        return locationRepository.save(location).getId();
+    }
+
+    /**Returns the number of stored entries on the date.*/
+    public int rowsOn(String date) {
+        return jdbcTemplate.queryForObject("select count(*) from sunrise_sunset_entity where date = ?",
+                Integer.class, LocalDate.parse(date));
+    }
+
+    /**Returns the number of locations linked to the entry.*/
+    public int linksOf(int id) {
+        return jdbcTemplate.queryForObject("select count(*) from sunrise_sunset_location where sunrise_sunset_id = ?",
+                Integer.class, id);
+    }
+
+    /**Returns a new entry without id and sun times, as a client would send it.*/
+    public static SunriseSunsetDto entry(String date, double latitude, double longitude, Integer... locationIds) {
+        return new SunriseSunsetDto(null, date, latitude, longitude, null, null, List.of(locationIds));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.SunriseSunset.aspect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.SunriseSunset.service.SunriseSunsetService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class TimingAspectTest {
+
+    private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SunriseSunsetService service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void captureLogs() {
+        logged.start();
+        logger().addAppender(logged);
+    }
+
+    @AfterEach
+    void releaseLogs() {
+        logger().detachAppender(logged);
+    }
+
+    @Test
+    void controllerAndServiceCallsAreTimedBySignature() throws Exception {
+        mockMvc.perform(get("/sun/times/{id}", 999999)).andExpect(status().isNotFound());
+
+        assertTrue(meterRegistry.get("app.method.timed")
+                .tag("method", "SunriseSunsetController.getSunriseSunsetById(..)").timer().count() >= 1);
+        assertTrue(meterRegistry.get("app.method.timed")
+                .tag("method", "SunriseSunsetService.getSunriseSunsetById(..)").timer().count() >= 1);
+    }
+
+    @Test
+    void failedCallsAreCountedAsErrors() {
+        assertThrows(IllegalArgumentException.class, () -> service.getSunriseSunsetPage(null, 0));
+
+        String method = "SunriseSunsetService.getSunriseSunsetPage(..)";
+        assertEquals(1, meterRegistry.get("app.method.errors").tag("method", method).counter().count());
+        assertEquals(1, meterRegistry.get("app.method.timed").tag("method", method).timer().count());
+    }
+
+    @Test
+    void onlySlowCallsAreLoggedWithoutSampling() throws Throwable {
+        TimingAspect aspect = new TimingAspect(new SimpleMeterRegistry(), Duration.ofMillis(50), 0.0);
+
+        aspect.time(joinPoint("Fast.call()", () -> "fast"));
+        aspect.time(joinPoint("Slow.call()", () -> {
+            Thread.sleep(80);
+            return "slow";
+        }));
+
+        List<String> messages = messages();
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0).startsWith("Slow method: Slow.call() took"), messages.get(0));
+        assertEquals(Level.WARN, logged.list.get(0).getLevel());
+    }
+
+    @Test
+    void sampledFastCallsAreLogged() throws Throwable {
+        TimingAspect aspect = new TimingAspect(new SimpleMeterRegistry(), Duration.ofHours(1), 1.0);
+
+        aspect.time(joinPoint("Fast.call()", () -> "fast"));
+
+        assertEquals(1, messages().size());
+        assertTrue(messages().get(0).startsWith("Method: Fast.call() took"), messages().get(0));
+        assertEquals(Level.INFO, logged.list.get(0).getLevel());
+    }
+
+    private List<String> messages() {
+        return logged.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    private static Logger logger() {
+        return (Logger) LoggerFactory.getLogger(TimingAspect.class);
+    }
+
+    /**Returns a join point of a method with the short signature that proceeds by calling the body.*/
+    private static ProceedingJoinPoint joinPoint(String shortSignature, Callable<Object> body) {
+        Signature signature = (Signature) Proxy.newProxyInstance(Signature.class.getClassLoader(),
+                new Class<?>[] {Signature.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "toShortString", "toString" -> shortSignature;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (ProceedingJoinPoint) Proxy.newProxyInstance(ProceedingJoinPoint.class.getClassLoader(),
+                new Class<?>[] {ProceedingJoinPoint.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getSignature" -> signature;
+                    case "proceed" -> body.call();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
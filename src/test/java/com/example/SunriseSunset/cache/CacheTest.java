@@ -0,0 +1,168 @@
+package com.example.SunriseSunset.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CacheTest {
+
+    @Test
+    void getOrComputeLoadsOnlyOnce() {
+        Cache<String, String> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = cache.getOrCompute("key", k -> "value" + loads.incrementAndGet());
+        String second = cache.getOrCompute("key", k -> "value" + loads.incrementAndGet());
+
+        assertEquals("value1", first);
+        assertEquals("value1", second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void nullResultsAreNotCached() {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+
+        assertNull(cache.getOrCompute("missing", k -> null));
+        assertFalse(cache.containsKey("missing"));
+    }
+
+    @Test
+    void statisticsCountHitsMissesAndLoads() {
+        Cache<String, String> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+
+        cache.getOrCompute("key", k -> "value");
+        cache.getOrCompute("key", k -> "value");
+        cache.get("key");
+        cache.get("missing");
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+    }
+
+    @Test
+    void invalidateRemovesOnlyEntriesCoveringTheDate() {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        cache.put("day", List.of(1), List.of(CacheTag.of("Minsk", day)));
+        cache.put("range", List.of(1, 2), List.of(new CacheTag("Minsk", day.minusDays(10), day.plusDays(10))));
+        cache.put("otherRange", List.of(1, 2), List.of(new CacheTag("Minsk", day.plusDays(1), day.plusDays(10))));
+        cache.put("otherLocation", List.of(1), List.of(CacheTag.of("Brest", day)));
+
+        assertEquals(2, cache.invalidate("Minsk", day));
+
+        assertFalse(cache.containsKey("day"));
+        assertFalse(cache.containsKey("range"));
+        assertTrue(cache.containsKey("otherRange"));
+        assertTrue(cache.containsKey("otherLocation"));
+    }
+
+    @Test
+    void invalidateDoesNotWaitForLoadInProgress() throws InterruptedException {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> cache.getOrCompute("day", List.of(CacheTag.of("Minsk", day)), key -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(1);
+        }));
+        loader.start();
+        loading.await();
+
+        assertEquals(1, cache.invalidate("Minsk", day));
+        release.countDown();
+        loader.join();
+
+        assertFalse(cache.containsKey("day"));
+    }
+
+    @Test
+    void supersededEmptyLoadKeepsIndexOfNewerLoad() throws InterruptedException {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> cache.getOrCompute("day", List.of(CacheTag.of("Minsk", day)), key -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        loader.start();
+        loading.await();
+        cache.invalidate("Minsk", day);
+        cache.getOrCompute("day", List.of(CacheTag.of("Minsk", day)), key -> List.of(2));
+
+        release.countDown();
+        loader.join();
+
+        assertEquals(1, cache.invalidate("Minsk", day));
+        assertFalse(cache.containsKey("day"));
+    }
+
+    @Test
+    void indexIsEmptyAfterEntriesAreReplacedOrRemoved() {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        List<CacheTag> tags = List.of(CacheTag.of("Minsk", day), CacheTag.of("Brest", day));
+
+        cache.put("replaced", List.of(1), tags);
+        cache.put("replaced", List.of(2), Duration.ofMinutes(1));
+        cache.getOrCompute("removed", tags, key -> List.of(3));
+        cache.invalidate("removed");
+        assertEquals(0, cache.indexedKeys());
+
+        cache.put("retagged", List.of(5), tags);
+        cache.put("retagged", List.of(6), List.of(CacheTag.of("Minsk", day)));
+        assertEquals(1, cache.indexedKeys());
+        assertEquals(0, cache.invalidate("Brest", day));
+        assertEquals(1, cache.invalidate("Minsk", day));
+        cache.put("cleared", List.of(7), tags);
+        cache.clear();
+        assertEquals(0, cache.indexedKeys());
+    }
+
+    @Test
+    void evictedEntriesLeaveTheIndex() {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 2, Duration.ofMinutes(1));
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        List<CacheTag> tags = List.of(CacheTag.of("Minsk", day), CacheTag.of("Brest", day));
+
+        cache.put("first", List.of(1), tags);
+        cache.getOrCompute("second", tags, key -> List.of(2));
+
+        assertEquals(2, cache.indexedKeys());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.stats().evictionCount());
+    }
+
+    @Test
+    void expiredEntriesAreNotReturned() throws InterruptedException {
+        Cache<String, List<Integer>> cache = new Cache<>("test", 100, Duration.ofMinutes(1));
+        cache.put("short", List.of(1, 2, 3), Duration.ofMillis(10));
+
+        Thread.sleep(50);
+
+        assertNull(cache.get("short"));
+    }
+}
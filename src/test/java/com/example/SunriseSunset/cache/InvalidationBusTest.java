@@ -0,0 +1,119 @@
+package com.example.SunriseSunset.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.SunriseSunset.configuration.CacheInvalidationConfiguration;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+class InvalidationBusTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    private final InProcessInvalidationTransport firstTransport = new InProcessInvalidationTransport();
+    private final InProcessInvalidationTransport secondTransport = new InProcessInvalidationTransport();
+    private final Cache<String, List<SunriseSunsetDto>> firstCache = new Cache<>("first", 100, Duration.ofMinutes(1));
+    private final Cache<String, List<SunriseSunsetDto>> secondCache = new Cache<>("second", 100, Duration.ofMinutes(1));
+    private final InvalidationBus first = new InvalidationBus(firstTransport, firstCache,
+            new RangeCache(10, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+    private final InvalidationBus second = new InvalidationBus(secondTransport, secondCache,
+            new RangeCache(10, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        firstTransport.close();
+        secondTransport.close();
+    }
+
+    @Test
+    void invalidationReachesPeer() {
+        firstCache.put("day", List.of(), List.of(CacheTag.of("Minsk", DAY)));
+        secondCache.put("day", List.of(), List.of(CacheTag.of("Minsk", DAY)));
+        secondCache.put("otherDay", List.of(), List.of(CacheTag.of("Minsk", DAY.plusDays(1))));
+
+        assertEquals(1, first.invalidate("Minsk", DAY));
+
+        assertFalse(firstCache.containsKey("day"));
+        assertFalse(secondCache.containsKey("day"));
+        assertTrue(secondCache.containsKey("otherDay"));
+    }
+
+    @Test
+    void clearReachesPeer() {
+        secondCache.put("day", List.of(), List.of(CacheTag.of("Minsk", DAY)));
+
+        first.clear();
+
+        assertFalse(secondCache.containsKey("day"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void invalidationReachesOtherApplicationContext() {
+        try (AnnotationConfigApplicationContext firstContext = startInstance();
+             AnnotationConfigApplicationContext secondContext = startInstance()) {
+            Cache<String, List<SunriseSunsetDto>> cache = secondContext.getBean(Cache.class);
+            cache.put("day", List.of(), List.of(CacheTag.of("Minsk", DAY)));
+            RangeCache.Timeline timeline = secondContext.getBean(RangeCache.class).timeline("Minsk");
+            timeline.merge(timeline.version(), DAY, DAY.plusDays(1), List.of());
+
+            firstContext.getBean(InvalidationBus.class).invalidate("Minsk", DAY);
+
+            assertFalse(cache.containsKey("day"));
+            assertEquals(1, timeline.gaps(DAY, DAY.plusDays(1)).size());
+            assertTrue(timeline.gaps(DAY.plusDays(1), DAY.plusDays(1)).isEmpty());
+
+            secondContext.close();
+            cache.put("day", List.of(), List.of(CacheTag.of("Minsk", DAY)));
+            firstContext.getBean(InvalidationBus.class).invalidate("Minsk", DAY);
+            assertTrue(cache.containsKey("day"));
+        }
+    }
+
+    @Test
+    void closedTransportNoLongerReceives() {
+        secondCache.put("day", List.of(), List.of(CacheTag.of("Minsk", DAY)));
+        secondTransport.close();
+
+        first.invalidate("Minsk", DAY);
+
+        assertTrue(secondCache.containsKey("day"));
+    }
+
+    private static AnnotationConfigApplicationContext startInstance() {
+        return new AnnotationConfigApplicationContext(CachesConfiguration.class);
+    }
+
+    /**Caches of one application instance, wired to the bus by CacheInvalidationConfiguration.*/
+    @Configuration
+    @Import(CacheInvalidationConfiguration.class)
+    static class CachesConfiguration {
+
+        @Bean
+        Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache() {
+            return new Cache<>("sunriseSunset", 100, Duration.ofMinutes(1));
+        }
+
+        @Bean
+        RangeCache rangeCache() {
+            return new RangeCache(10, Duration.ofMinutes(1));
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.SunriseSunset.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RangeCacheTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void subRangeOfLoadedRangeHasNoGaps() {
+        RangeCache.Timeline timeline = new RangeCache(1000, Duration.ofMinutes(1)).timeline("Minsk");
+        timeline.merge(timeline.version(), JAN_1, JAN_1.plusDays(30), entries(JAN_1, 31));
+
+        assertTrue(timeline.gaps(JAN_1.plusDays(5), JAN_1.plusDays(9)).isEmpty());
+        assertEquals(5, timeline.slice(JAN_1.plusDays(5), JAN_1.plusDays(9)).size());
+    }
+
+    @Test
+    void partiallyCoveredRangeReportsOnlyMissingDays() {
+        RangeCache.Timeline timeline = new RangeCache(1000, Duration.ofMinutes(1)).timeline("Minsk");
+        timeline.merge(timeline.version(), JAN_1.plusDays(10), JAN_1.plusDays(19), entries(JAN_1.plusDays(10), 10));
+
+        List<LocalDate[]> gaps = timeline.gaps(JAN_1, JAN_1.plusDays(29));
+
+        assertEquals(2, gaps.size());
+        assertEquals(JAN_1, gaps.get(0)[0]);
+        assertEquals(JAN_1.plusDays(9), gaps.get(0)[1]);
+        assertEquals(JAN_1.plusDays(20), gaps.get(1)[0]);
+        assertEquals(JAN_1.plusDays(29), gaps.get(1)[1]);
+    }
+
+    @Test
+    void invalidatedDayBecomesGapAndBlocksStaleMerge() {
+        RangeCache cache = new RangeCache(1000, Duration.ofMinutes(1));
+        RangeCache.Timeline timeline = cache.timeline("Minsk");
+        long version = timeline.version();
+        timeline.merge(version, JAN_1, JAN_1.plusDays(9), entries(JAN_1, 10));
+
+        cache.invalidate("Minsk", JAN_1.plusDays(4));
+
+        List<LocalDate[]> gaps = timeline.gaps(JAN_1, JAN_1.plusDays(9));
+        assertEquals(1, gaps.size());
+        assertEquals(JAN_1.plusDays(4), gaps.get(0)[0]);
+        assertEquals(JAN_1.plusDays(4), gaps.get(0)[1]);
+        assertFalse(timeline.merge(version, JAN_1.plusDays(4), JAN_1.plusDays(4), entries(JAN_1.plusDays(4), 1)));
+    }
+
+    @Test
+    void sliceRebuildsStoredEntries() {
+        RangeCache cache = new RangeCache(1000, Duration.ofMinutes(1));
+        RangeCache.Timeline timeline = cache.timeline("Minsk");
+        OffsetDateTime sunrise = OffsetDateTime.parse("2024-01-02T08:59:12+03:00");
+        OffsetDateTime sunset = OffsetDateTime.parse("2024-01-02T14:09:45Z");
+        List<SunriseSunsetDto> loaded = new ArrayList<>(entries(JAN_1, 3));
+        loaded.add(new SunriseSunsetDto(7, JAN_1.plusDays(1).toString(), 53.9, 27.56, sunrise, sunset, List.of(3, 5)));
+        timeline.merge(timeline.version(), JAN_1, JAN_1.plusDays(2), loaded);
+
+        cache.invalidate("Minsk", JAN_1);
+        List<SunriseSunsetDto> slice = timeline.slice(JAN_1, JAN_1.plusDays(2));
+
+        assertEquals(3, slice.size());
+        SunriseSunsetDto restored = slice.get(1);
+        assertEquals(7, restored.getId());
+        assertEquals("2024-01-02", restored.getDate());
+        assertEquals(sunrise, restored.getSunrise());
+        assertEquals(sunset, restored.getSunset());
+        assertEquals(List.of(3, 5), restored.getLocationIds());
+        assertEquals(List.of(), slice.get(0).getLocationIds());
+    }
+
+    @Test
+    void growingTimelinesAreEvictedByTotalEntries() {
+        RangeCache cache = new RangeCache(100, Duration.ofMinutes(1));
+        for (String location : List.of("Minsk", "Brest", "Grodno")) {
+            RangeCache.Timeline timeline = cache.timeline(location);
+            timeline.merge(timeline.version(), JAN_1, JAN_1.plusDays(39), entries(JAN_1, 40));
+        }
+        cache.cleanUp();
+
+        assertEquals(2, cache.size());
+    }
+
+    private static List<SunriseSunsetDto> entries(LocalDate start, int count) {
+        List<SunriseSunsetDto> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new SunriseSunsetDto(i + 1, start.plusDays(i).toString(), 53.9, 27.56, null, null, List.of()));
+        }
+        return entries;
+    }
+}
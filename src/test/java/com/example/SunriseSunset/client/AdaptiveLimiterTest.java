@@ -0,0 +1,74 @@
+package com.example.SunriseSunset.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTest {
+
+    private static final Duration SLOW = Duration.ofSeconds(1);
+
+    @Test
+    void shrinksOnDropsAndSlowCallsAndGrowsBackWhenBusy() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 20, 0.5, Duration.ofMillis(100), 1000, 1000, 0);
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.onDropped();
+        assertEquals(5, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.onSuccess(SLOW);
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(Duration.ZERO));
+            assertTrue(limiter.tryAcquire(Duration.ZERO));
+            limiter.onSuccess(Duration.ofMillis(10));
+            limiter.onSuccess(Duration.ofMillis(10));
+        }
+        assertTrue(limiter.getLimit() > 2);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsBeyondLimitWhenQueueIsFull() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0.5, SLOW, 1000, 1000, 0);
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        assertFalse(limiter.tryAcquire(SLOW));
+        limiter.onIgnored();
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+    }
+
+    @Test
+    void queuedCallerGetsReleasedSlot() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0.5, SLOW, 1000, 1000, 1);
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+
+        Thread releaser = new Thread(() -> {
+            while (limiter.getQueueSize() == 0) {
+                Thread.onSpinWait();
+            }
+            limiter.onIgnored();
+        });
+        releaser.start();
+
+        assertTrue(limiter.tryAcquire(Duration.ofSeconds(5)));
+        releaser.join();
+        assertEquals(0, limiter.getQueueSize());
+    }
+
+    @Test
+    void tokenBucketLimitsRate() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 0.5, SLOW, 20, 1, 10);
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.onIgnored();
+        assertFalse(limiter.tryAcquire(Duration.ZERO));
+        long start = System.nanoTime();
+        assertTrue(limiter.tryAcquire(Duration.ofSeconds(1)));
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(30).toNanos());
+    }
+}
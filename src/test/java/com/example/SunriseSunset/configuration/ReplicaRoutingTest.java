@@ -0,0 +1,98 @@
+package com.example.SunriseSunset.configuration;
+
+import static com.example.SunriseSunset.SunTimesFixtures.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**Runs the API against an H2 primary and a replica that reads the same tables but rejects writes,
+ * so a write sent to the replica fails the request.*/
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.sql.init.mode=never",
+        "sun.datasource.replica-urls=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:replica.sql'",
+        "sun.times.mode=local"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    @Test
+    void replicaRejectsWrites() throws SQLException {
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertThrows(SQLException.class, () -> statement.executeUpdate(
+                    "INSERT INTO location_entity (name, country) VALUES ('Minsk', 'BY')"));
+        }
+    }
+
+    @Test
+    void updateDeleteAndBatchWriteToThePrimary() throws Exception {
+        int id = create(entry("2024-06-01", 53.9, 27.56));
+
+        mockMvc.perform(get("/sun/times/{id}", id))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/sun/times/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(entry("2024-06-02", 53.9, 27.56))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value("2024-06-02"));
+
+        mockMvc.perform(post("/sun/times/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                entry("2024-06-02", 53.9, 27.56), entry("2024-06-03", 53.9, 27.56)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("EXISTING"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+
+        mockMvc.perform(delete("/sun/times/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/sun/times/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
+    private int create(SunriseSunsetDto dto) throws Exception {
+        String body = mockMvc.perform(post("/sun/times")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        SunriseSunsetDto created = objectMapper.readValue(body, SunriseSunsetDto.class);
+        assertEquals(dto.getDate(), created.getDate());
+        return created.getId();
+    }
+}
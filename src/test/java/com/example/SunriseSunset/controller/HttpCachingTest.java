@@ -0,0 +1,43 @@
+package com.example.SunriseSunset.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HttpCachingTest {
+
+    private final HttpCaching httpCaching = new HttpCaching(Duration.ofDays(365),
+            Clock.fixed(Instant.parse("2024-03-15T10:00:00Z"), ZoneOffset.UTC));
+
+    @Test
+    void etagChangesWithContent() {
+        SunriseSunsetDto dto = entry(OffsetDateTime.parse("2024-03-10T04:10:00Z"));
+        SunriseSunsetDto same = entry(OffsetDateTime.parse("2024-03-10T04:10:00Z"));
+        SunriseSunsetDto changed = entry(OffsetDateTime.parse("2024-03-10T04:11:00Z"));
+
+        assertEquals(HttpCaching.etag(List.of(dto)), HttpCaching.etag(List.of(same)));
+        assertNotEquals(HttpCaching.etag(List.of(dto)), HttpCaching.etag(List.of(changed)));
+    }
+
+    @Test
+    void onlyDatesOverEverywhereAreImmutable() {
+        assertEquals("max-age=31536000, public, immutable",
+                httpCaching.cacheControl(LocalDate.of(2024, 3, 13)).getHeaderValue());
+        assertEquals("no-cache", httpCaching.cacheControl(LocalDate.of(2024, 3, 14)).getHeaderValue());
+        assertEquals("no-cache", httpCaching.cacheControl(LocalDate.of(2024, 3, 15)).getHeaderValue());
+    }
+
+    private static SunriseSunsetDto entry(OffsetDateTime sunrise) {
+        return new SunriseSunsetDto(1, "2024-03-10", 53.9, 27.56, sunrise,
+                OffsetDateTime.parse("2024-03-10T15:50:00Z"), List.of(1));
+    }
+}
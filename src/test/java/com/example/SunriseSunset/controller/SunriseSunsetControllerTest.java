@@ -0,0 +1,158 @@
+package com.example.SunriseSunset.controller;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.SunriseSunset.geo.GeoGrid;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class SunriseSunsetControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void batchReportsEveryItemOfJsonArray() throws Exception {
+        ResultActions result = mockMvc.perform(post("/sun/times/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + item("2024-09-01", 53.9) + "," + item("2024-09-01", 53.90001) + ","
+                        + item("2024-09-31", 53.9) + "]"));
+
+        expectCreatedExistingFailed(result);
+    }
+
+    @Test
+    void batchReportsEveryLineOfNdjson() throws Exception {
+        ResultActions result = mockMvc.perform(post("/sun/times/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(item("2024-09-02", 53.9) + "\n" + item("2024-09-02", 53.90001) + "\n"
+                        + item("2024-09-31", 53.9) + "\n"));
+
+        expectCreatedExistingFailed(result);
+    }
+
+    @Test
+    void updateOfMissingEntryIsNotFoundBeforeTheBodyIsChecked() throws Exception {
+        mockMvc.perform(put("/sun/times/{id}", 999999)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(item("2024-09-31", 53.9)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void updateOntoCoordinatesAndDateOfAnotherEntryIsConflict() throws Exception {
+        create(item("2024-09-03", 53.9));
+        int moved = create(item("2024-09-03", 52.1));
+
+        mockMvc.perform(put("/sun/times/{id}", moved)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(item("2024-09-03", 53.90001)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+        mockMvc.perform(get("/sun/times/{id}", moved))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.latitude").value(52.1));
+    }
+
+    @Test
+    void nearFiltersByDistanceAndOrdersNearestFirst() throws Exception {
+        int minsk = create(item("2024-09-10", 53.9, 27.56));
+        int borisov = create(item("2024-09-10", 54.23, 28.49));
+        // In a grid cell of the query box, but 83 km away.
+        create(item("2024-09-10", 54.65, 27.56));
+        create(item("2024-09-10", 52.1, 23.7));
+        create(item("2024-09-11", 53.9, 27.56));
+
+        near(53.9, 27.56, 80, "2024-09-10")
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(minsk))
+                .andExpect(jsonPath("$[1].id").value(borisov));
+    }
+
+    @Test
+    void nearFindsEntriesAcrossTheAntimeridian() throws Exception {
+        int east = create(item("2024-09-12", -17.0, 179.9));
+        int west = create(item("2024-09-12", -17.0, -179.9));
+        create(item("2024-09-12", -17.0, 0.0));
+
+        near(-17.0, -179.95, 50, "2024-09-12")
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder(east, west)));
+    }
+
+    @Test
+    void nearFallsBackToLatitudeBandBeyondMaxCellsAndRejectsLargerRadius() throws Exception {
+        int minsk = create(item("2024-09-13", 53.9, 27.56));
+        int brest = create(item("2024-09-13", 52.1, 23.7));
+        create(item("2024-09-13", 53.9, -27.56));
+        assertNull(GeoGrid.cellsWithin(53.9, 27.56, 1000));
+
+        near(53.9, 27.56, 1000, "2024-09-13")
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(minsk))
+                .andExpect(jsonPath("$[1].id").value(brest));
+        mockMvc.perform(get("/sun/times/near").param("lat", "53.9").param("lng", "27.56")
+                        .param("radiusKm", "1001").param("date", "2024-09-13"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions near(double lat, double lng, double radiusKm, String date) throws Exception {
+        return mockMvc.perform(get("/sun/times/near")
+                        .param("lat", String.valueOf(lat))
+                        .param("lng", String.valueOf(lng))
+                        .param("radiusKm", String.valueOf(radiusKm))
+                        .param("date", date))
+                .andExpect(status().isOk());
+    }
+
+    private int create(String item) throws Exception {
+        String body = mockMvc.perform(post("/sun/times")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(item))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+
+    private static void expectCreatedExistingFailed(ResultActions result) throws Exception {
+        String body = result.andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].entry.sunrise").isNotEmpty())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("EXISTING"))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[2].status").value("FAILED"))
+                .andExpect(jsonPath("$[2].entry").isEmpty())
+                .andExpect(jsonPath("$[2].error").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals((Integer) JsonPath.read(body, "$[0].entry.id"), JsonPath.read(body, "$[1].entry.id"));
+    }
+
+    private static String item(String date, double latitude) {
+        return item(date, latitude, 27.56);
+    }
+
+    private static String item(String date, double latitude, double longitude) {
+        return "{\"date\":\"" + date + "\",\"latitude\":" + latitude + ",\"longitude\":" + longitude
+                + ",\"locationIds\":[]}";
+    }
+}
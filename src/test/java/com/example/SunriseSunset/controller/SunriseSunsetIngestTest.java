@@ -0,0 +1,129 @@
+package com.example.SunriseSunset.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.jayway.jsonpath.JsonPath;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**Runs the asynchronous create with one worker and room for one queued entry. Sun times of new entries are
+ * resolved on an executor that holds every task until the gate opens, so the worker stays busy meanwhile.*/
+@SpringBootTest(properties = {
+        "sun.ingest.queue-capacity=1",
+        "sun.ingest.workers=1",
+        "sun.ingest.batch-size=1",
+        "sun.ingest.shutdown-timeout=PT1S"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class SunriseSunsetIngestTest {
+
+    private static final CountDownLatch entered = new CountDownLatch(1);
+    private static final CountDownLatch gate = new CountDownLatch(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void openGate() {
+        gate.countDown();
+    }
+
+    @Test
+    void fullQueueIsRejectedAndTicketsReportOutcome() throws Exception {
+        String created = submit("2024-10-01");
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        mockMvc.perform(get("/sun/times/ingest/{ticket}", created))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        // The worker holds the first entry, so this one fills the queue and the next is turned away.
+        String failed = submit("2024-10-32");
+        mockMvc.perform(post("/sun/times").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(item("2024-10-02")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429));
+
+        gate.countDown();
+        String createdTicket = awaitOutcome(created);
+        assertEquals("CREATED", JsonPath.read(createdTicket, "$.status"));
+        assertNotNull(JsonPath.read(createdTicket, "$.entry.id"));
+        String failedTicket = awaitOutcome(failed);
+        assertEquals("FAILED", JsonPath.read(failedTicket, "$.status"));
+        assertNotNull(JsonPath.read(failedTicket, "$.error"));
+
+        mockMvc.perform(get("/sun/times/ingest/{ticket}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String submit(String date) throws Exception {
+        String body = mockMvc.perform(post("/sun/times").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(item(date)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.ticket");
+    }
+
+    /**Polls the ticket until it is no longer pending and returns its last state.*/
+    private String awaitOutcome(String ticket) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            String body = mockMvc.perform(get("/sun/times/ingest/{ticket}", ticket))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            if (!"PENDING".equals(JsonPath.read(body, "$.status")) || System.nanoTime() > deadline) {
+                return body;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static String item(String date) {
+        return "{\"date\":\"" + date + "\",\"latitude\":53.9,\"longitude\":27.56,\"locationIds\":[]}";
+    }
+
+    @TestConfiguration
+    static class GatedExecutorConfiguration {
+
+        @Bean
+        @Primary
+        ExecutorService gatedBatchExecutor() {
+            return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+                @Override
+                protected void beforeExecute(Thread thread, Runnable task) {
+                    entered.countDown();
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        thread.interrupt();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.SunriseSunset.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GeoGridTest {
+
+    @Test
+    void distanceBetweenMinskAndBrest() {
+        assertEquals(326, GeoGrid.distanceKm(53.9, 27.5667, 52.0976, 23.7341), 3);
+    }
+
+    @Test
+    void cellsCoverEveryPointWithinRadius() {
+        double lat = 53.9;
+        double lng = 27.5667;
+        double radiusKm = 50;
+        List<Integer> cells = GeoGrid.cellsWithin(lat, lng, radiusKm);
+
+        for (int bearing = 0; bearing < 360; bearing += 15) {
+            double dLat = Math.cos(Math.toRadians(bearing)) * radiusKm * 0.99 / 111.2;
+            double dLng = Math.sin(Math.toRadians(bearing)) * radiusKm * 0.99 / (111.2 * Math.cos(Math.toRadians(lat)));
+            assertTrue(GeoGrid.distanceKm(lat, lng, lat + dLat, lng + dLng) <= radiusKm);
+            assertTrue(cells.contains(GeoGrid.cellOf(lat + dLat, lng + dLng)), "bearing " + bearing);
+        }
+    }
+
+    @Test
+    void keysRoundHalfUpToKeySteps() {
+        assertEquals(539000, GeoGrid.keyOf(53.90004));
+        assertEquals(GeoGrid.keyOf(53.9), GeoGrid.keyOf(53.90001));
+        assertEquals(-100000, GeoGrid.keyOf(-10.00005));
+        assertEquals(1800000, GeoGrid.keyOf(180));
+    }
+
+    @Test
+    void cellsWrapAroundAntimeridian() {
+        List<Integer> cells = GeoGrid.cellsWithin(0, 179.9, 30);
+
+        assertTrue(cells.contains(GeoGrid.cellOf(0, 179.95)));
+        assertTrue(cells.contains(GeoGrid.cellOf(0, -179.95)));
+    }
+
+    @Test
+    void largeAreaFallsBackToBoundingBox() {
+        assertNull(GeoGrid.cellsWithin(0, 0, 1000));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.SunriseSunset.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.SunriseSunset.client.SunApiClient;
+import com.example.SunriseSunset.dto.SunTimesPreloadDto;
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import com.example.SunriseSunset.exception.UpstreamUnavailableException;
+import com.example.SunriseSunset.repository.SunTimesLookupRepository;
+import com.example.SunriseSunset.solar.SolarCalculator;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+/**Upstream responses come from the local calculation; the stub fails once it has answered failAfter calls.*/
+@SpringBootTest(properties = "sun.lookup.precision=0.01")
+@ActiveProfiles("h2")
+class SunTimesLookupTest {
+
+    private static final SolarCalculator calculator = new SolarCalculator();
+    private static final AtomicInteger fetches = new AtomicInteger();
+    private static final AtomicInteger failAfter = new AtomicInteger(Integer.MAX_VALUE);
+    private static final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    /**Runs once before the next saveAll of the lookup repository.*/
+    private static final AtomicReference<Runnable> beforeSaveAll = new AtomicReference<>();
+
+    @Autowired
+    private SunTimesLookup lookup;
+
+    @Autowired
+    private SunriseSunsetService service;
+
+    @AfterEach
+    void resetStubs() {
+        fetches.set(0);
+        failAfter.set(Integer.MAX_VALUE);
+        batchSizes.clear();
+        beforeSaveAll.set(null);
+    }
+
+    @Test
+    void findMatchesCoordinatesWithinPrecision() {
+        LocalDate date = LocalDate.of(2024, 6, 21);
+        lookup.store(53.9, 27.56, date, calculator.calculate(53.9, 27.56, date));
+
+        assertTrue(lookup.find(53.9, 27.56, date).isPresent());
+        assertTrue(lookup.find(53.904, 27.5551, date).isPresent());
+        assertTrue(lookup.find(53.906, 27.56, date).isEmpty());
+        assertTrue(lookup.find(53.9, 27.5649, date).isPresent());
+        assertTrue(lookup.find(53.9, 27.5651, date).isEmpty());
+        assertTrue(lookup.find(53.9, 27.56, date.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void storeAllFallsBackToSingleInsertsWhenAnotherCallerStoredADate() {
+        LocalDate start = LocalDate.of(2024, 7, 1);
+        List<LocalDate> dates = List.of(start, start.plusDays(1), start.plusDays(2));
+        List<SunriseSunsetModel> models = dates.stream().map(date -> calculator.calculate(52.1, 23.7, date)).toList();
+        lookup.store(52.1, 23.7, start, models.get(0));
+        // Stored after storeAll looked for the stored dates, so its batch collides on this one.
+        beforeSaveAll.set(() -> lookup.store(52.1, 23.7, start.plusDays(1), models.get(1)));
+
+        assertEquals(1, lookup.storeAll(52.1, 23.7, dates, models));
+
+        assertEquals(3, lookup.findStoredDates(52.1, 23.7, start, start.plusDays(2)).size());
+    }
+
+    @Test
+    void preloadStoresInChunksAndSkipsStoredDays() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        SunTimesPreloadDto request = preload(48.85, 2.35, start, start.plusDays(119));
+
+        assertEquals(120, service.preloadLookup(List.of(request)));
+        assertEquals(List.of(50, 50, 20), batchSizes);
+        assertEquals(120, fetches.get());
+
+        assertEquals(0, service.preloadLookup(List.of(request)));
+        assertEquals(120, fetches.get());
+    }
+
+    @Test
+    void preloadKeepsChunksFetchedBeforeAFailure() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        failAfter.set(75);
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> service.preloadLookup(List.of(preload(40.71, -74.0, start, start.plusDays(119)))));
+
+        assertEquals(List.of(50, 25), batchSizes);
+        assertEquals(75, lookup.findStoredDates(40.71, -74.0, start, start.plusDays(119)).size());
+    }
+
+    private static SunTimesPreloadDto preload(double latitude, double longitude, LocalDate start, LocalDate end) {
+        SunTimesPreloadDto request = new SunTimesPreloadDto();
+        request.setLatitude(latitude);
+        request.setLongitude(longitude);
+        request.setStartDate(start.toString());
+        request.setEndDate(end.toString());
+        return request;
+    }
+
+    @TestConfiguration
+    static class StubConfiguration {
+
+        @Bean
+        @Primary
+        SunApiClient calculatingSunApiClient(MeterRegistry meterRegistry) {
+            return new SunApiClient(null, "http://localhost", 5, Duration.ofSeconds(30), 10, 1, 20, 0.9,
+                    Duration.ofSeconds(2), 10, 20, 100, Duration.ofMillis(500), meterRegistry) {
+                @Override
+                public SunriseSunsetModel fetch(double lat, double lng, String date) {
+                    if (fetches.incrementAndGet() > failAfter.get()) {
+                        throw new UpstreamUnavailableException("Sun API недоступен");
+                    }
+                    return calculator.calculate(lat, lng, LocalDate.parse(date));
+                }
+            };
+        }
+
+        /**Repository that records the size of every saveAll and runs the beforeSaveAll hook, if one is set.*/
+        @Bean
+        @Primary
+        SunTimesLookupRepository recordingLookupRepository(
+                @Qualifier("sunTimesLookupRepository") SunTimesLookupRepository repository) {
+            return (SunTimesLookupRepository) Proxy.newProxyInstance(SunTimesLookupRepository.class.getClassLoader(),
+                    new Class<?>[] {SunTimesLookupRepository.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("saveAll")) {
+                            batchSizes.add(((Collection<?>) args[0]).size());
+                            Runnable hook = beforeSaveAll.getAndSet(null);
+                            if (hook != null) {
+                                hook.run();
+                            }
+                        }
+                        try {
+                            return method.invoke(repository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.SunriseSunset.service;
+
+import static com.example.SunriseSunset.SunTimesFixtures.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.SunriseSunset.SunTimesFixtures;
+import com.example.SunriseSunset.cache.Cache;
+import com.example.SunriseSunset.cache.RangeCache;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.model.LocationEntity;
+import com.example.SunriseSunset.repository.LocationRepository;
+import com.example.SunriseSunset.repository.SunriseSunsetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**Caches expire entries after 300 ms unless precomputation pinned them for an hour. Locations are walked two at a
+ * time, three days ahead.*/
+@SpringBootTest(properties = {
+        "sun.precompute.days=3",
+        "sun.precompute.batch-size=2",
+        "sun.precompute.parallelism=2",
+        "sun.precompute.cache-ttl=PT1H",
+        "sun.cache.sun-times.ttl=PT0.3S",
+        "sun.cache.ranges.ttl=PT0.3S"
+})
+@ActiveProfiles("h2")
+@Import(SunTimesFixtures.class)
+class SunTimesPrecomputeJobTest {
+
+    /**Runs once when the next run counts the locations, before it walks them.*/
+    private static final AtomicReference<Runnable> beforeCount = new AtomicReference<>();
+
+    @Autowired
+    private SunriseSunsetService service;
+
+    @Autowired
+    private SunTimesPrecomputeJob job;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private SunriseSunsetRepository sunriseSunsetRepository;
+
+    @Autowired
+    private Cache<String, List<SunriseSunsetDto>> sunriseSunsetCache;
+
+    @Autowired
+    private RangeCache rangeCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SunTimesFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void precomputeLocationCreatesMissingDaysAndPinsThemInCache() throws InterruptedException {
+        LocationEntity minsk = seededLocation("Minsk", 53.9, 27.56);
+        LocationEntity brest = seededLocation("Brest", 53.9, 27.56);
+        LocationEntity empty = locationRepository.findById(fixtures.location("Empty")).orElseThrow();
+        seededLocation("Grodno", 53.68, 23.83);
+        LocalDate seeded = LocalDate.now(ZoneOffset.UTC).minusDays(10);
+        LocalDate start = LocalDate.of(2025, 6, 1);
+        service.createSunriseSunset(entry("2025-06-02", 53.9, 27.56, minsk.getId()));
+
+        assertEquals(2, service.precomputeLocation(minsk, start, 3, Duration.ofHours(1)));
+        assertEquals(0, service.precomputeLocation(minsk, start, 3, Duration.ofHours(1)));
+        // Brest shares the coordinates, so the days stored for Minsk are linked instead of created again.
+        assertEquals(0, service.precomputeLocation(brest, start, 3, Duration.ofHours(1)));
+        assertEquals(0, service.precomputeLocation(empty, start, 3, Duration.ofHours(1)));
+        assertEquals(3, datesOf(minsk, start, start.plusDays(3)));
+        assertEquals(3, datesOf(brest, start, start.plusDays(3)));
+        assertEquals(0, datesOf(empty, start, start.plusDays(3)));
+        // Grodno is cached through the regular reads, so its entries expire with the default TTL.
+        assertEquals(1, service.getSunriseSunsetByLocationAndDate("Grodno", seeded).size());
+        assertEquals(1, service.getSunriseSunsetByLocationAndDateRange("Grodno", seeded, seeded).size());
+
+        Thread.sleep(600);
+
+        for (int day = 0; day < 3; day++) {
+            String key = SunriseSunsetService.sunCacheKey("Minsk", start.plusDays(day));
+            assertNotNull(sunriseSunsetCache.get(key), key);
+        }
+        assertEquals(3, rangeCache.timeline("Minsk").slice(start, start.plusDays(2)).size());
+        assertNull(sunriseSunsetCache.get(SunriseSunsetService.sunCacheKey("Grodno", seeded)));
+        assertTrue(rangeCache.timeline("Grodno").slice(seeded, seeded).isEmpty());
+    }
+
+    @Test
+    void runWalksEveryLocationAndRecordsOnlyCompleteRuns() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<LocationEntity> locations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            locations.add(seededLocation("Walk" + i, 50.0 + i, 20.0));
+        }
+        // Latitude out of range makes the upsert of this location fail.
+        LocationEntity broken = locationRepository.findById(fixtures.location("Broken")).orElseThrow();
+        jdbcTemplate.update("insert into sunrise_sunset_entity (id, date, latitude, longitude, sunrise, sunset)"
+                + " values (910001, ?, 95.0, 20.0, ?, ?)",
+                today.minusDays(10), today + "T04:00:00Z", today + "T19:00:00Z");
+        jdbcTemplate.update("insert into sunrise_sunset_location (sunrise_sunset_id, location_id) values (910001, ?)",
+                broken.getId());
+        double lastSuccess = gauge("sun.precompute.last.success");
+        double failures = meterRegistry.counter("sun.precompute.failures").count();
+
+        job.run();
+
+        assertEquals(lastSuccess, gauge("sun.precompute.last.success"));
+        assertEquals(failures + 1, meterRegistry.counter("sun.precompute.failures").count());
+        assertEquals(locationRepository.count(), gauge("sun.precompute.locations.done"));
+        for (LocationEntity location : locations) {
+            assertEquals(3, datesOf(location, today, today.plusDays(2)));
+            assertEquals(0, datesOf(location, today.plusDays(3), today.plusDays(3)));
+        }
+
+        jdbcTemplate.update("update sunrise_sunset_entity set latitude = 49.0 where id = 910001");
+        long started = System.currentTimeMillis() / 1000;
+        job.run();
+
+        assertTrue(gauge("sun.precompute.last.success") >= started);
+        assertEquals(3, datesOf(broken, today, today.plusDays(2)));
+    }
+
+    @Test
+    void runIsSkippedWhileAnotherRunIsInProgress() throws Exception {
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger counts = new AtomicInteger();
+        beforeCount.set(() -> {
+            counting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Void> first = CompletableFuture.runAsync(job::run);
+        assertTrue(counting.await(10, TimeUnit.SECONDS));
+        beforeCount.set(counts::incrementAndGet);
+
+        job.run();
+
+        assertEquals(0, counts.get());
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        beforeCount.set(null);
+    }
+
+    /**Stores a location with one entry ten days ago at the coordinates, which precomputation carries forward.*/
+    private LocationEntity seededLocation(String name, double latitude, double longitude) {
+        int id = fixtures.location(name);
+        String date = LocalDate.now(ZoneOffset.UTC).minusDays(10).toString();
+        service.createSunriseSunset(entry(date, latitude, longitude, id));
+        return locationRepository.findById(id).orElseThrow();
+    }
+
+    private int datesOf(LocationEntity location, LocalDate start, LocalDate end) {
+        return sunriseSunsetRepository.findDatesByLocationIdAndDateBetween(location.getId(), start, end).size();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @TestConfiguration
+    static class CountHookConfiguration {
+
+        /**Repository that runs the beforeCount hook, if one is set, before delegating count.*/
+        @Bean
+        @Primary
+        LocationRepository hookedLocationRepository(@Qualifier("locationRepository") LocationRepository repository) {
+            return (LocationRepository) Proxy.newProxyInstance(LocationRepository.class.getClassLoader(),
+                    new Class<?>[] {LocationRepository.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("count")) {
+                            Runnable hook = beforeCount.get();
+                            if (hook != null) {
+                                hook.run();
+                            }
+                        }
+                        try {
+                            return method.invoke(repository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.SunriseSunset.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.SunriseSunset.client.SunApiClient;
+import com.example.SunriseSunset.dto.Results;
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import com.example.SunriseSunset.exception.UpstreamUnavailableException;
+import com.example.SunriseSunset.solar.SolarCalculator;
+import com.example.SunriseSunset.solar.SunTimesMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SunTimesResolverTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stopCallers() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersForSameKeyShareOneUpstreamCall() throws Exception {
+        SunriseSunsetModel upstream = model("2024-06-21T01:40:00Z", "2024-06-21T18:44:00Z");
+        StubSunApiClient client = new StubSunApiClient(meterRegistry, () -> {
+            await(release);
+            return upstream;
+        });
+        SunTimesResolver resolver = resolver(SunTimesMode.REMOTE, client, true);
+
+        List<CompletableFuture<SunriseSunsetModel>> results = resolveConcurrently(resolver);
+
+        assertEquals(1, client.calls.get());
+        for (CompletableFuture<SunriseSunsetModel> result : results) {
+            assertSame(upstream, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, meterRegistry.counter("sun.api.calls").count());
+        assertEquals(CALLERS - 1, meterRegistry.counter("sun.api.calls.coalesced").count());
+        assertEquals(0, meterRegistry.get("sun.api.calls.in.flight").gauge().value());
+    }
+
+    @Test
+    void failedUpstreamCallIsSharedAndNotKept() throws Exception {
+        UpstreamUnavailableException failure = new UpstreamUnavailableException("Sun API недоступен");
+        StubSunApiClient client = new StubSunApiClient(meterRegistry, () -> {
+            await(release);
+            throw failure;
+        });
+        SunTimesResolver resolver = resolver(SunTimesMode.REMOTE, client, false);
+
+        List<CompletableFuture<SunriseSunsetModel>> results = resolveConcurrently(resolver);
+
+        for (CompletableFuture<SunriseSunsetModel> result : results) {
+            CompletionException e = assertThrows(CompletionException.class, result::join);
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, client.calls.get());
+        assertEquals(CALLERS - 1, meterRegistry.counter("sun.api.calls.coalesced").count());
+        assertEquals(0, meterRegistry.get("sun.api.calls.in.flight").gauge().value());
+
+        assertThrows(UpstreamUnavailableException.class, () -> resolver.resolve(53.9, 27.56, "2024-06-21"));
+        assertEquals(2, client.calls.get());
+    }
+
+    @Test
+    void localModeNeverCallsUpstream() {
+        StubSunApiClient client = new StubSunApiClient(meterRegistry, () -> {
+            throw new AssertionError("upstream called");
+        });
+        SunTimesResolver resolver = resolver(SunTimesMode.LOCAL, client, true);
+
+        SunriseSunsetModel resolved = resolver.resolve(53.9, 27.56, "2024-06-21");
+
+        assertSameTimes(local(53.9, 27.56, "2024-06-21"), resolved);
+        assertEquals(0, client.calls.get());
+        assertEquals(0, meterRegistry.counter("sun.api.calls").count());
+    }
+
+    @Test
+    void remoteModeFallsBackToLocalWhenUpstreamFails() {
+        StubSunApiClient client = new StubSunApiClient(meterRegistry, () -> {
+            throw new UpstreamUnavailableException("Sun API недоступен");
+        });
+        SunTimesResolver resolver = resolver(SunTimesMode.REMOTE, client, true);
+
+        SunriseSunsetModel resolved = resolver.resolve(53.9, 27.56, "2024-06-21");
+
+        assertSameTimes(local(53.9, 27.56, "2024-06-21"), resolved);
+        assertEquals(1, client.calls.get());
+        assertEquals(1, meterRegistry.counter("sun.api.fallback.local").count());
+    }
+
+    @Test
+    void verificationRecordsRemoteTimesOutsideTolerance() throws InterruptedException {
+        SunriseSunsetModel local = local(53.9, 27.56, "2024-06-21");
+        OffsetDateTime sunrise = OffsetDateTime.parse(local.getResults().getSunrise());
+        SunriseSunsetModel remote = model(sunrise.plusMinutes(10).toString(), local.getResults().getSunset());
+        StubSunApiClient client = new StubSunApiClient(meterRegistry, () -> remote);
+        SunTimesResolver resolver = resolver(SunTimesMode.LOCAL_WITH_REMOTE_VERIFICATION, client, true);
+
+        SunriseSunsetModel resolved = resolver.resolve(53.9, 27.56, "2024-06-21");
+
+        assertSameTimes(local, resolved);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.counter("sun.verification.mismatches").count() < 1) {
+            assertTrue(System.nanoTime() < deadline, "mismatch was not recorded");
+            Thread.sleep(5);
+        }
+        assertEquals(1, client.calls.get());
+        resolver.shutdown();
+    }
+
+    /**Starts every caller on the same key and releases the upstream once all but the first have joined its call.*/
+    private List<CompletableFuture<SunriseSunsetModel>> resolveConcurrently(SunTimesResolver resolver)
+            throws Exception {
+        List<CompletableFuture<SunriseSunsetModel>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> resolver.resolve(53.9, 27.56, "2024-06-21"), callers));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.counter("sun.api.calls.coalesced").count() < CALLERS - 1) {
+            assertTrue(System.nanoTime() < deadline, "callers did not join the in-flight call");
+            Thread.sleep(5);
+        }
+        release.countDown();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> null)
+                .get(10, TimeUnit.SECONDS);
+        return results;
+    }
+
+    /**Returns a resolver whose lookup table is disabled, so every remote resolution goes to the client.*/
+    private SunTimesResolver resolver(SunTimesMode mode, SunApiClient client, boolean fallbackToLocal) {
+        return new SunTimesResolver(new SolarCalculator(), client, new SunTimesLookup(null, false, 0.01), mode,
+                Duration.ofMinutes(2), fallbackToLocal, meterRegistry);
+    }
+
+    private static SunriseSunsetModel local(double lat, double lng, String date) {
+        return new SolarCalculator().calculate(lat, lng, LocalDate.parse(date));
+    }
+
+    private static void assertSameTimes(SunriseSunsetModel expected, SunriseSunsetModel actual) {
+        assertEquals(expected.getResults().getSunrise(), actual.getResults().getSunrise());
+        assertEquals(expected.getResults().getSunset(), actual.getResults().getSunset());
+    }
+
+    private static SunriseSunsetModel model(String sunrise, String sunset) {
+        SunriseSunsetModel model = new SunriseSunsetModel();
+        model.setResults(new Results(sunrise, sunset));
+        model.setStatus("OK");
+        return model;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**Client that answers from the supplier instead of calling the API, counting the calls.*/
+    private static final class StubSunApiClient extends SunApiClient {
+
+        private final Supplier<SunriseSunsetModel> response;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubSunApiClient(MeterRegistry meterRegistry, Supplier<SunriseSunsetModel> response) {
+            super(null, "http://localhost", 5, Duration.ofSeconds(30), 10, 1, 20, 0.9, Duration.ofSeconds(2),
+                    10, 20, 100, Duration.ofMillis(500), meterRegistry);
+            this.response = response;
+        }
+
+        @Override
+        public SunriseSunsetModel fetch(double lat, double lng, String date) {
+            calls.incrementAndGet();
+            return response.get();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.SunriseSunset.service;
+
+import static com.example.SunriseSunset.SunTimesFixtures.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.example.SunriseSunset.SunTimesFixtures;
+import com.example.SunriseSunset.dto.BatchItemResult;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.repository.SunriseSunsetRepository;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+@Import(SunTimesFixtures.class)
+class SunriseSunsetBatchTest {
+
+    /**Runs once before the next saveAll of the repository, inside the transaction that calls it.*/
+    private static final AtomicReference<Runnable> beforeSaveAll = new AtomicReference<>();
+
+    @Autowired
+    private SunriseSunsetService service;
+
+    @Autowired
+    private SunTimesFixtures fixtures;
+
+    @Test
+    void mixesNewExistingAndInvalidItems() {
+        int minsk = fixtures.location("Minsk");
+        SunriseSunsetDto stored = service.createSunriseSunset(entry("2024-08-01", 53.9, 27.56, minsk));
+
+        List<BatchItemResult> results = service.createSunriseSunsets(List.of(
+                entry("2024-08-01", 53.9, 27.56, minsk),
+                entry("2024-08-01", 52.1, 23.7, minsk),
+                entry("2024-08-01", 95.0, 27.56, minsk),
+                entry("2024-08-32", 53.9, 27.56, minsk)));
+
+        assertEquals(BatchItemResult.Status.EXISTING, results.get(0).getStatus());
+        assertEquals(stored.getId(), results.get(0).getEntry().getId());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(2).getStatus());
+        assertNull(results.get(2).getEntry());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(3).getStatus());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertEquals(2, fixtures.rowsOn("2024-08-01"));
+    }
+
+    @Test
+    void duplicatesWithinRequestShareOneEntry() {
+        int minsk = fixtures.location("Minsk");
+        int brest = fixtures.location("Brest");
+
+        List<BatchItemResult> results = service.createSunriseSunsets(List.of(
+                entry("2024-08-02", 53.90001, 27.56, minsk),
+                entry("2024-08-02", 53.900012, 27.56, brest),
+                entry("2024-08-02", 53.9, 27.56, minsk)));
+
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.EXISTING, results.get(1).getStatus());
+        assertEquals(BatchItemResult.Status.EXISTING, results.get(2).getStatus());
+        int id = results.get(0).getEntry().getId();
+        for (BatchItemResult result : results) {
+            assertEquals(id, result.getEntry().getId());
+            assertEquals(Set.of(minsk, brest), Set.copyOf(result.getEntry().getLocationIds()));
+        }
+        assertEquals(1, fixtures.rowsOn("2024-08-02"));
+        assertEquals(2, fixtures.linksOf(id));
+    }
+
+    @Test
+    void retriesWhenConcurrentRequestStoresSameKey() {
+        int minsk = fixtures.location("Minsk");
+        int brest = fixtures.location("Brest");
+        AtomicReference<SunriseSunsetDto> concurrent = new AtomicReference<>();
+        // Commits the key from another thread after the batch found it missing, so its insert violates the constraint.
+        beforeSaveAll.set(() -> concurrent.set(CompletableFuture.supplyAsync(
+                () -> service.createSunriseSunset(entry("2024-08-03", 53.9, 27.56, minsk))).join()));
+
+        List<BatchItemResult> results = service.createSunriseSunsets(List.of(
+                entry("2024-08-03", 53.9, 27.56, brest),
+                entry("2024-08-03", 52.1, 23.7, brest)));
+
+        assertNull(beforeSaveAll.get());
+        assertEquals(BatchItemResult.Status.EXISTING, results.get(0).getStatus());
+        assertEquals(concurrent.get().getId(), results.get(0).getEntry().getId());
+        assertEquals(Set.of(minsk, brest), Set.copyOf(results.get(0).getEntry().getLocationIds()));
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(2, fixtures.rowsOn("2024-08-03"));
+    }
+
+    @TestConfiguration
+    static class ConcurrentInsertConfiguration {
+
+        /**Repository that runs the beforeSaveAll hook, if one is set, before delegating saveAll.*/
+        @Bean
+        @Primary
+        SunriseSunsetRepository hookedSunriseSunsetRepository(
+                @Qualifier("sunriseSunsetRepository") SunriseSunsetRepository repository) {
+            return (SunriseSunsetRepository) Proxy.newProxyInstance(SunriseSunsetRepository.class.getClassLoader(),
+                    new Class<?>[] {SunriseSunsetRepository.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("saveAll")) {
+                            Runnable hook = beforeSaveAll.getAndSet(null);
+                            if (hook != null) {
+                                hook.run();
+                            }
+                        }
+                        try {
+                            return method.invoke(repository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.SunriseSunset.service;
+
+import static com.example.SunriseSunset.SunTimesFixtures.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.SunriseSunset.SunTimesFixtures;
+import com.example.SunriseSunset.dto.SunriseSunsetDto;
+import com.example.SunriseSunset.dto.SunriseSunsetPageDto;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+@Import(SunTimesFixtures.class)
+class SunriseSunsetServiceTest {
+
+    @Autowired
+    private SunriseSunsetService service;
+
+    @Autowired
+    private NaturalKeyBackfill naturalKeyBackfill;
+
+    @Autowired
+    private SunTimesFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createReusesEntryWithSameRoundedCoordinatesAndDate() {
+        int minsk = fixtures.location("Minsk");
+        int brest = fixtures.location("Brest");
+
+        SunriseSunsetDto first = service.createSunriseSunset(entry("2024-07-01", 53.90001, 27.56001, minsk));
+        SunriseSunsetDto second = service.createSunriseSunset(entry("2024-07-01", 53.900012, 27.560014, brest));
+        SunriseSunsetDto nextStep = service.createSunriseSunset(entry("2024-07-01", 53.90006, 27.56001, brest));
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(Set.of(minsk, brest), Set.copyOf(second.getLocationIds()));
+        assertNotEquals(first.getId(), nextStep.getId());
+        assertEquals(2, fixtures.rowsOn("2024-07-01"));
+    }
+
+    @Test
+    void createLinksOnlyLocationsNotLinkedYet() {
+        int minsk = fixtures.location("Minsk");
+        int brest = fixtures.location("Brest");
+
+        SunriseSunsetDto created = service.createSunriseSunset(entry("2024-07-02", 53.9, 27.56, minsk));
+        service.createSunriseSunset(entry("2024-07-02", 53.9, 27.56, minsk, brest));
+        SunriseSunsetDto repeated = service.createSunriseSunset(entry("2024-07-02", 53.9, 27.56, brest));
+
+        assertEquals(created.getId(), repeated.getId());
+        assertEquals(Set.of(minsk, brest), Set.copyOf(repeated.getLocationIds()));
+        assertEquals(2, fixtures.linksOf(created.getId()));
+        assertEquals(Set.of(minsk, brest), Set.copyOf(service.getSunriseSunsetById(created.getId()).getLocationIds()));
+    }
+
+    @Test
+    void backfillMergesDuplicatesIntoOldestEntry() {
+        int minsk = fixtures.location("Minsk");
+        int brest = fixtures.location("Brest");
+        // Rows stored before the natural key existed: three duplicates of one key and one entry of another.
+        insertLegacy(900001, "2024-07-03", 53.90001, 27.56, minsk);
+        insertLegacy(900002, "2024-07-03", 53.900012, 27.56, brest);
+        insertLegacy(900003, "2024-07-03", 53.9, 27.56, minsk);
+        insertLegacy(900004, "2024-07-03", 52.1, 23.7, brest);
+
+        naturalKeyBackfill.run(null);
+
+        assertEquals(2, fixtures.rowsOn("2024-07-03"));
+        SunriseSunsetDto merged = service.getSunriseSunsetById(900001);
+        assertNotNull(merged);
+        assertEquals(Set.of(minsk, brest), Set.copyOf(merged.getLocationIds()));
+        assertEquals(2, fixtures.linksOf(900001));
+        assertEquals(0, fixtures.linksOf(900002) + fixtures.linksOf(900003));
+        assertEquals(List.of(brest), service.getSunriseSunsetById(900004).getLocationIds());
+
+        SunriseSunsetDto created = service.createSunriseSunset(entry("2024-07-03", 53.9, 27.56, brest));
+        assertEquals(900001, created.getId());
+    }
+
+    @Test
+    void pagesChainThroughEveryEntryAndCapTheSize() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            rows.add(new Object[] {920000 + i, LocalDate.parse("2023-01-01"), -80 + i * 0.01, 27.56,
+                    "2023-01-01T04:00:00Z", "2023-01-01T19:00:00Z"});
+        }
+        jdbcTemplate.batchUpdate("insert into sunrise_sunset_entity (id, date, latitude, longitude, sunrise, sunset)"
+                + " values (?, ?, ?, ?, ?, ?)", rows);
+        List<Integer> stored = jdbcTemplate.queryForList("select id from sunrise_sunset_entity order by id",
+                Integer.class);
+
+        SunriseSunsetPageDto capped = service.getSunriseSunsetPage(null, 5000);
+        assertEquals(1000, capped.getItems().size());
+        assertEquals(stored.get(999), capped.getNextCursor());
+
+        List<Integer> walked = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            SunriseSunsetPageDto page = service.getSunriseSunsetPage(cursor, 300);
+            page.getItems().forEach(item -> walked.add(item.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(stored, walked);
+
+        SunriseSunsetPageDto whole = service.getSunriseSunsetPage(stored.get(stored.size() - 11), 10);
+        assertEquals(10, whole.getItems().size());
+        assertNull(whole.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> service.getSunriseSunsetPage(null, 0));
+    }
+
+    @Test
+    void streamEmitsEveryEntryOnceWithItsLocations() {
+        int minsk = fixtures.location("Minsk");
+        int brest = fixtures.location("Brest");
+        SunriseSunsetDto shared = service.createSunriseSunset(entry("2024-07-04", 53.9, 27.56, minsk, brest));
+        SunriseSunsetDto single = service.createSunriseSunset(entry("2024-07-04", 52.1, 23.7, brest));
+        List<Integer> stored = jdbcTemplate.queryForList("select id from sunrise_sunset_entity order by id",
+                Integer.class);
+
+        List<SunriseSunsetDto> streamed = new ArrayList<>();
+        service.streamAllSunriseSunsets(streamed::add);
+
+        assertEquals(stored, streamed.stream().map(SunriseSunsetDto::getId).toList());
+        for (SunriseSunsetDto dto : streamed) {
+            if (dto.getId().equals(shared.getId())) {
+                assertEquals(Set.of(minsk, brest), Set.copyOf(dto.getLocationIds()));
+            } else if (dto.getId().equals(single.getId())) {
+                assertEquals(List.of(brest), dto.getLocationIds());
+            }
+        }
+    }
+
+    private void insertLegacy(int id, String date, double latitude, double longitude, int locationId) {
+        jdbcTemplate.update("insert into sunrise_sunset_entity (id, date, latitude, longitude, sunrise, sunset)"
+                + " values (?, ?, ?, ?, ?, ?)", id, LocalDate.parse(date), latitude, longitude,
+                date + "T04:00:00Z", date + "T19:00:00Z");
+        jdbcTemplate.update("insert into sunrise_sunset_location (sunrise_sunset_id, location_id) values (?, ?)",
+                id, locationId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.SunriseSunset.solar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.SunriseSunset.dto.SunriseSunsetModel;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import org.junit.jupiter.api.Test;
+
+class SolarCalculatorTest {
+
+    private final SolarCalculator calculator = new SolarCalculator();
+
+    @Test
+    void matchesPublishedTimesForMinsk() {
+        SunriseSunsetModel model = calculator.calculate(53.9, 27.5667, LocalDate.of(2024, 6, 21));
+
+        assertClose("2024-06-21T01:39:00Z", model.getResults().getSunrise());
+        assertClose("2024-06-21T18:45:00Z", model.getResults().getSunset());
+    }
+
+    @Test
+    void matchesPublishedTimesForNewYork() {
+        SunriseSunsetModel model = calculator.calculate(40.7128, -74.0060, LocalDate.of(2024, 1, 1));
+
+        assertClose("2024-01-01T12:20:00Z", model.getResults().getSunrise());
+        assertClose("2024-01-01T21:39:00Z", model.getResults().getSunset());
+    }
+
+    @Test
+    void reportsPolarNightAndPolarDay() {
+        SunriseSunsetModel night = calculator.calculate(78.22, 15.65, LocalDate.of(2024, 12, 21));
+        SunriseSunsetModel day = calculator.calculate(78.22, 15.65, LocalDate.of(2024, 6, 21));
+
+        assertEquals(SolarCalculator.POLAR_TIME, night.getResults().getSunrise());
+        assertEquals(SolarCalculator.POLAR_TIME, day.getResults().getSunset());
+    }
+
+    private static void assertClose(String expected, String actual) {
+        Duration diff = Duration.between(OffsetDateTime.parse(expected), OffsetDateTime.parse(actual)).abs();
+        assertTrue(diff.compareTo(Duration.ofMinutes(2)) <= 0, "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,8 @@
+-- Run on every replica connection of ReplicaRoutingTest: the session reads the primary's tables through
+-- views, which H2 does not allow to be written, so a write sent to the replica fails like on a hot standby.
+CREATE SCHEMA IF NOT EXISTS replica;
+CREATE OR REPLACE VIEW replica.sunrise_sunset_entity AS SELECT * FROM public.sunrise_sunset_entity;
+CREATE OR REPLACE VIEW replica.sunrise_sunset_location AS SELECT * FROM public.sunrise_sunset_location;
+CREATE OR REPLACE VIEW replica.location_entity AS SELECT * FROM public.location_entity;
+CREATE OR REPLACE VIEW replica.sun_times_lookup AS SELECT * FROM public.sun_times_lookup;
+SET SCHEMA replica;